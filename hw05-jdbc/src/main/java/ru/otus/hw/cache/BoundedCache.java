@@ -0,0 +1,118 @@
+package ru.otus.hw.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// LRU map limited by maxSize entries; values must be immutable, since they are shared between callers
+public class BoundedCache<K, V> implements ManagedCache {
+
+    private final String name;
+
+    private final int maxSize;
+
+    private final Map<K, V> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+
+    public BoundedCache(String name, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > BoundedCache.this.maxSize;
+            }
+        };
+    }
+
+    public Optional<V> get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        (value == null ? misses : hits).increment();
+        return Optional.ofNullable(value);
+    }
+
+    // Returns the cached values of the keys found, every absent key counts as a miss
+    public Map<K, V> getAll(Collection<K> keys) {
+        var found = new HashMap<K, V>(keys.size());
+        synchronized (entries) {
+            for (var key : keys) {
+                var value = entries.get(key);
+                if (value != null) {
+                    found.put(key, value);
+                }
+            }
+        }
+        hits.add(found.size());
+        misses.add(keys.size() - found.size());
+        return found;
+    }
+
+    // Runs a load of the missed values from the source of truth, recording its latency
+    public <T> T load(Supplier<T> loader) {
+        var startedAt = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            var elapsedNanos = System.nanoTime() - startedAt;
+            loads.increment();
+            loadNanos.add(elapsedNanos);
+            maxLoadNanos.accumulate(elapsedNanos);
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    public void putAll(Map<K, V> values) {
+        synchronized (entries) {
+            entries.putAll(values);
+        }
+    }
+
+    public void evict(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(name, hits.sum(), misses.sum(), loads.sum(), Duration.ofNanos(loadNanos.sum()),
+                Duration.ofNanos(maxLoadNanos.get()), size, maxSize);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.otus.hw.cache;
+
+import java.time.Duration;
+
+public record CacheStats(String name, long hits, long misses, long loads, Duration totalLoadTime,
+                         Duration maxLoadTime, int size, int maxSize) {
+
+    public double hitRatio() {
+        var requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public Duration averageLoadTime() {
+        return loads == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+    }
+}
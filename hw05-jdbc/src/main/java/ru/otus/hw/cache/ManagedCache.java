@@ -0,0 +1,7 @@
+package ru.otus.hw.cache;
+
+public interface ManagedCache {
+    CacheStats stats();
+
+    void evictAll();
+}
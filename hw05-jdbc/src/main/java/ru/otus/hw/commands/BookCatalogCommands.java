@@ -0,0 +1,33 @@
+package ru.otus.hw.commands;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import ru.otus.hw.services.BookCatalogService;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+@ShellComponent
+@ConditionalOnProperty(name = "app.book-catalog.enabled", havingValue = "true")
+public class BookCatalogCommands {
+
+    private final BookCatalogService bookCatalogService;
+
+    @ShellMethod(value = "Rebuild books catalog", key = "bcr")
+    public String rebuildCatalog() {
+        var result = bookCatalogService.rebuild();
+        return "Catalog of %d books rebuilt in %d ms".formatted(result.booksCount(), result.rebuildTime().toMillis());
+    }
+
+    @ShellMethod(value = "Check books catalog consistency", key = "bcc")
+    public String checkCatalog() {
+        var result = bookCatalogService.check();
+        var summary = "%d books checked in %d ms, %d inconsistencies found".formatted(result.booksCount(),
+                result.checkTime().toMillis(), result.inconsistenciesCount());
+        return Stream.concat(Stream.of(summary), result.inconsistencies().stream())
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+}
@@ -3,9 +3,18 @@ package ru.otus.hw.commands;
 import lombok.RequiredArgsConstructor;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import ru.otus.hw.completion.AuthorIdValueProvider;
+import ru.otus.hw.completion.GenreIdsValueProvider;
 import ru.otus.hw.converters.BookConverter;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.services.BookFilterService;
+import ru.otus.hw.services.BookImportService;
+import ru.otus.hw.services.BookSearchService;
 import ru.otus.hw.services.BookService;
 
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -18,11 +27,26 @@ public class BookCommands {
 
     private final BookConverter bookConverter;
 
-    @ShellMethod(value = "Find all books", key = "ab")
-    public String findAllBooks() {
-        return bookService.findAll().stream()
-                .map(bookConverter::bookToString)
-                .collect(Collectors.joining("," + System.lineSeparator()));
+    private final BookImportService bookImportService;
+
+    private final BookSearchService bookSearchService;
+
+    private final BookFilterService bookFilterService;
+
+    // ab --after-id 20 --limit 20
+    @ShellMethod(value = "Find all books or a page of books following the given id", key = "ab")
+    public String findAllBooks(@ShellOption(value = "--after-id", defaultValue = "0") long afterId,
+                               @ShellOption(value = "--limit", defaultValue = ShellOption.NULL) Integer limit) {
+        if (limit == null) {
+            return booksToString(bookService.findAll());
+        }
+        var books = bookService.findPage(afterId, limit);
+        if (books.size() < limit) {
+            return booksToString(books);
+        }
+        var lastId = books.get(books.size() - 1).getId();
+        return booksToString(books) + System.lineSeparator()
+                + "Next page: ab --after-id %d --limit %d".formatted(lastId, limit);
     }
 
     @ShellMethod(value = "Find book by id", key = "bbid")
@@ -32,23 +56,102 @@ public class BookCommands {
                 .orElse("Book with id %d not found".formatted(id));
     }
 
+    // bbids 3,1,2
+    @ShellMethod(value = "Find books by ids in the given order", key = "bbids")
+    public String findBooksByIds(Set<Long> ids) {
+        var books = bookService.findAllByIds(ids);
+        if (books.size() == ids.size()) {
+            return booksToString(books);
+        }
+        var foundIds = books.stream().map(Book::getId).collect(Collectors.toSet());
+        var missingIds = ids.stream().filter(id -> !foundIds.contains(id)).toList();
+        return booksToString(books) + System.lineSeparator()
+                + "Books with ids %s not found".formatted(missingIds);
+    }
+
     // bins newBook 1 1,6
     @ShellMethod(value = "Insert book", key = "bins")
-    public String insertBook(String title, long authorId, Set<Long> genresIds) {
+    public String insertBook(String title,
+                             @ShellOption(valueProvider = AuthorIdValueProvider.class) long authorId,
+                             @ShellOption(valueProvider = GenreIdsValueProvider.class) Set<Long> genresIds) {
         var savedBook = bookService.insert(title, authorId, genresIds);
         return bookConverter.bookToString(savedBook);
     }
 
     // bupd 4 editedBook 3 2,5
     @ShellMethod(value = "Update book", key = "bupd")
-    public String updateBook(long id, String title, long authorId, Set<Long> genresIds) {
+    public String updateBook(long id, String title,
+                             @ShellOption(valueProvider = AuthorIdValueProvider.class) long authorId,
+                             @ShellOption(valueProvider = GenreIdsValueProvider.class) Set<Long> genresIds) {
         var savedBook = bookService.update(id, title, authorId, genresIds);
         return bookConverter.bookToString(savedBook);
     }
 
-    // bdel 4
-    @ShellMethod(value = "Delete book by id", key = "bdel")
-    public void deleteBook(long id) {
-        bookService.deleteById(id);
+    // bdel 1,2,3
+    @ShellMethod(value = "Delete books by ids", key = "bdel")
+    public String deleteBooks(Set<Long> ids) {
+        return "Deleted %d books".formatted(bookService.deleteAllByIds(ids));
+    }
+
+    // bdela 2
+    @ShellMethod(value = "Delete all books of the author", key = "bdela")
+    public String deleteAuthorBooks(long authorId) {
+        return "Deleted %d books".formatted(bookService.deleteAllByAuthorId(authorId));
+    }
+
+    // bmvg 1 4
+    @ShellMethod(value = "Move all books from one genre to another", key = "bmvg")
+    public String replaceGenre(long fromGenreId, long toGenreId) {
+        return "Moved %d books".formatted(bookService.replaceGenre(fromGenreId, toGenreId));
+    }
+
+    // bimp books.csv --chunk-size 1000
+    @ShellMethod(value = "Import books from a .csv or .ndjson file", key = "bimp")
+    public String importBooks(String file,
+                              @ShellOption(value = "--chunk-size", defaultValue = "1000") int chunkSize) {
+        var result = bookImportService.importBooks(Path.of(file), chunkSize);
+        return "Imported %d books in %d chunks for %d ms (%.0f books/s)".formatted(result.booksCount(),
+                result.chunksCount(), result.elapsed().toMillis(), result.booksPerSecond());
+    }
+
+    // bsearch "silent ocean" --prefix --limit 20
+    @ShellMethod(value = "Find books by a part or a prefix of the title", key = "bsearch")
+    public String searchBooks(String query,
+                              @ShellOption(value = "--prefix") boolean prefixOnly,
+                              @ShellOption(value = "--limit", defaultValue = "20") int limit) {
+        var result = bookSearchService.searchByTitle(query, prefixOnly, limit);
+        return booksToString(result.books()) + System.lineSeparator()
+                + "Found %d books in %.3f ms".formatted(result.foundCount(),
+                result.searchTime().toNanos() / 1_000_000.0);
+    }
+
+    // bbg --all 1,2 --any 3,4 --none 5 --limit 20
+    @ShellMethod(value = "Filter books having all, any and none of the given genres", key = "bbg")
+    public String filterBooksByGenres(@ShellOption(value = "--all", defaultValue = "") Set<Long> allOf,
+                                      @ShellOption(value = "--any", defaultValue = "") Set<Long> anyOf,
+                                      @ShellOption(value = "--none", defaultValue = "") Set<Long> noneOf,
+                                      @ShellOption(value = "--limit", defaultValue = "20") int limit) {
+        var result = bookFilterService.filterByGenres(allOf, anyOf, noneOf, limit);
+        var facets = result.genresFacets().entrySet().stream()
+                .map(facet -> "%s: %d".formatted(facet.getKey().getName(), facet.getValue()))
+                .collect(Collectors.joining(", "));
+        return booksToString(result.books()) + System.lineSeparator()
+                + "Found %d books in %.3f ms".formatted(result.foundCount(),
+                result.filterTime().toNanos() / 1_000_000.0) + System.lineSeparator()
+                + "Genres: " + facets;
+    }
+
+    // bcnt --all 1 --none 2
+    @ShellMethod(value = "Count books having all, any and none of the given genres", key = "bcnt")
+    public String countBooks(@ShellOption(value = "--all", defaultValue = "") Set<Long> allOf,
+                             @ShellOption(value = "--any", defaultValue = "") Set<Long> anyOf,
+                             @ShellOption(value = "--none", defaultValue = "") Set<Long> noneOf) {
+        return "%d books".formatted(bookFilterService.countByGenres(allOf, anyOf, noneOf));
+    }
+
+    private String booksToString(List<Book> books) {
+        return books.stream()
+                .map(bookConverter::bookToString)
+                .collect(Collectors.joining("," + System.lineSeparator()));
     }
 }
@@ -0,0 +1,36 @@
+package ru.otus.hw.commands;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import ru.otus.hw.services.CacheService;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class CacheCommands {
+
+    private final CacheService cacheService;
+
+    @ShellMethod(value = "Show caches statistics", key = "cs")
+    public String cachesStats() {
+        return cacheService.stats().stream()
+                .map(stats -> ("%s: %d hits, %d misses, hit ratio %.2f, %d loads for %.3f ms on average "
+                        + "(max %.3f ms), %d of %d entries").formatted(stats.name(), stats.hits(), stats.misses(),
+                        stats.hitRatio(), stats.loads(), toMillis(stats.averageLoadTime()),
+                        toMillis(stats.maxLoadTime()), stats.size(), stats.maxSize()))
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    @ShellMethod(value = "Evict all cached entries", key = "cev")
+    public String evictCaches() {
+        cacheService.evictAll();
+        return "Caches are evicted";
+    }
+
+    private static double toMillis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+}
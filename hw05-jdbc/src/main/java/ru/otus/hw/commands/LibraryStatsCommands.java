@@ -0,0 +1,50 @@
+package ru.otus.hw.commands;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.services.LibraryStatsService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@SuppressWarnings({"SpellCheckingInspection", "unused"})
+@RequiredArgsConstructor
+@ShellComponent
+public class LibraryStatsCommands {
+
+    private final LibraryStatsService libraryStatsService;
+
+    // stats --top 5 --budget-ms 2000, the budget limits only the genres co-occurrence pass
+    @ShellMethod(value = "Show books per author and genre, top authors and genres co-occurrence", key = "stats")
+    public String showStats(@ShellOption(value = "--top", defaultValue = "10") int topCount,
+                            @ShellOption(value = "--budget-ms", defaultValue = "5000") long budgetMillis) {
+        var stats = libraryStatsService.collect(topCount, Duration.ofMillis(budgetMillis));
+        var authorsWithBooks = stats.booksPerAuthor().values().stream().filter(count -> count > 0).count();
+        var topPairs = stats.genresCoOccurrence().entrySet().stream()
+                .limit(topCount)
+                .map(pair -> "%s + %s: %d".formatted(pair.getKey().first().getName(),
+                        pair.getKey().second().getName(), pair.getValue()))
+                .collect(Collectors.joining(", "));
+        var estimation = stats.isEstimated()
+                ? " (estimated from %.1f%% of books)".formatted(stats.coOccurrenceCoverage() * 100) : "";
+        return String.join(System.lineSeparator(),
+                "Books: %d, authors having books: %d of %d".formatted(stats.booksCount(), authorsWithBooks,
+                        stats.booksPerAuthor().size()),
+                "Top authors: " + countsToString(stats.topAuthors(), Author::getFullName),
+                "Books per genre: " + countsToString(stats.booksPerGenre(), Genre::getName),
+                "Genres co-occurrence%s: %s".formatted(estimation, topPairs),
+                "Collected in %d ms".formatted(stats.elapsed().toMillis()));
+    }
+
+    private static <K> String countsToString(Map<K, Long> counts, Function<K, String> nameOf) {
+        return counts.entrySet().stream()
+                .map(count -> "%s: %d".formatted(nameOf.apply(count.getKey()), count.getValue()))
+                .collect(Collectors.joining(", "));
+    }
+}
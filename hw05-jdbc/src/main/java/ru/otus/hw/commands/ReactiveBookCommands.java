@@ -0,0 +1,71 @@
+package ru.otus.hw.commands;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import ru.otus.hw.completion.AuthorIdValueProvider;
+import ru.otus.hw.completion.GenreIdsValueProvider;
+import ru.otus.hw.converters.BookConverter;
+import ru.otus.hw.services.ReactiveBookService;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The shell waits for every result, so the reactive pipelines are blocked on at the very end
+@SuppressWarnings({"SpellCheckingInspection", "unused"})
+@Profile("r2dbc")
+@RequiredArgsConstructor
+@ShellComponent
+public class ReactiveBookCommands {
+
+    private final ReactiveBookService bookService;
+
+    private final BookConverter bookConverter;
+
+    // rab --limit 20
+    @ShellMethod(value = "Find all books through R2DBC, the first ones up to the limit", key = "rab")
+    public String findAllBooks(@ShellOption(value = "--limit", defaultValue = ShellOption.NULL) Integer limit) {
+        var books = bookService.findAll();
+        if (limit != null) {
+            books = books.take(limit);
+        }
+        return books.map(bookConverter::bookToString)
+                .collect(Collectors.joining("," + System.lineSeparator()))
+                .block();
+    }
+
+    @ShellMethod(value = "Find book by id through R2DBC", key = "rbbid")
+    public String findBookById(long id) {
+        return bookService.findById(id)
+                .map(bookConverter::bookToString)
+                .defaultIfEmpty("Book with id %d not found".formatted(id))
+                .block();
+    }
+
+    // rbins newBook 1 1,6
+    @ShellMethod(value = "Insert book through R2DBC", key = "rbins")
+    public String insertBook(String title,
+                             @ShellOption(valueProvider = AuthorIdValueProvider.class) long authorId,
+                             @ShellOption(valueProvider = GenreIdsValueProvider.class) Set<Long> genresIds) {
+        return bookService.insert(title, authorId, genresIds)
+                .map(bookConverter::bookToString)
+                .block();
+    }
+
+    // rbupd 4 editedBook 3 2,5
+    @ShellMethod(value = "Update book through R2DBC", key = "rbupd")
+    public String updateBook(long id, String title,
+                             @ShellOption(valueProvider = AuthorIdValueProvider.class) long authorId,
+                             @ShellOption(valueProvider = GenreIdsValueProvider.class) Set<Long> genresIds) {
+        return bookService.update(id, title, authorId, genresIds)
+                .map(bookConverter::bookToString)
+                .block();
+    }
+
+    @ShellMethod(value = "Delete book by id through R2DBC", key = "rbdel")
+    public void deleteBook(long id) {
+        bookService.deleteById(id).block();
+    }
+}
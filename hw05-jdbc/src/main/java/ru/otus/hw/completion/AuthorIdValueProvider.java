@@ -0,0 +1,28 @@
+package ru.otus.hw.completion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.services.AuthorService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+public class AuthorIdValueProvider extends CachedIdValueProvider {
+
+    private final AuthorService authorService;
+
+    public AuthorIdValueProvider(AuthorService authorService,
+                                 @Value("${app.completion.time-to-live:30s}") Duration timeToLive) {
+        super(timeToLive, false);
+        this.authorService = authorService;
+    }
+
+    @Override
+    protected Map<Long, String> loadNamesById() {
+        return authorService.findAll().stream()
+                .collect(Collectors.toMap(Author::getId, Author::getFullName));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.otus.hw.completion;
+
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+import org.springframework.shell.standard.ValueProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+// Completes entity ids from an in-memory index, which is reloaded at most once per time to live,
+// so the database is not queried on every keystroke. The name of an entity is shown as the description
+// of its id. Multivalued parameters are completed after the last comma of the typed list
+public abstract class CachedIdValueProvider implements ValueProvider {
+
+    private static final int MAX_PROPOSALS = 50;
+
+    private static final char IDS_SEPARATOR = ',';
+
+    private final Duration timeToLive;
+
+    private final boolean multiValued;
+
+    private final LongSupplier nanoTime;
+
+    private volatile LoadedIndex loadedIndex;
+
+    protected CachedIdValueProvider(Duration timeToLive, boolean multiValued) {
+        this(timeToLive, multiValued, System::nanoTime);
+    }
+
+    CachedIdValueProvider(Duration timeToLive, boolean multiValued, LongSupplier nanoTime) {
+        this.timeToLive = timeToLive;
+        this.multiValued = multiValued;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public List<CompletionProposal> complete(CompletionContext completionContext) {
+        var word = Objects.requireNonNullElse(completionContext.currentWordUpToCursor(), "");
+        var typedIds = multiValued ? word.substring(0, word.lastIndexOf(IDS_SEPARATOR) + 1) : "";
+        var prefix = word.substring(typedIds.length());
+        return currentIndex().findByPrefix(prefix, MAX_PROPOSALS).entrySet().stream()
+                .map(idAndName -> new CompletionProposal(typedIds + idAndName.getKey())
+                        .displayText(idAndName.getKey())
+                        .description(idAndName.getValue())
+                        .complete(!multiValued))
+                .toList();
+    }
+
+    protected abstract Map<Long, String> loadNamesById();
+
+    private IdCompletionIndex currentIndex() {
+        var current = loadedIndex;
+        if (current != null && !isExpired(current)) {
+            return current.index();
+        }
+        synchronized (this) {
+            if (loadedIndex == null || isExpired(loadedIndex)) {
+                loadedIndex = new LoadedIndex(new IdCompletionIndex(loadNamesById()), nanoTime.getAsLong());
+            }
+            return loadedIndex.index();
+        }
+    }
+
+    private boolean isExpired(LoadedIndex index) {
+        return nanoTime.getAsLong() - index.loadedAtNanos() > timeToLive.toNanos();
+    }
+
+    private record LoadedIndex(IdCompletionIndex index, long loadedAtNanos) {
+    }
+}
@@ -0,0 +1,28 @@
+package ru.otus.hw.completion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.services.GenreService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+public class GenreIdsValueProvider extends CachedIdValueProvider {
+
+    private final GenreService genreService;
+
+    public GenreIdsValueProvider(GenreService genreService,
+                                 @Value("${app.completion.time-to-live:30s}") Duration timeToLive) {
+        super(timeToLive, true);
+        this.genreService = genreService;
+    }
+
+    @Override
+    protected Map<Long, String> loadNamesById() {
+        return genreService.findAll().stream()
+                .collect(Collectors.toMap(Genre::getId, Genre::getName));
+    }
+}
@@ -0,0 +1,33 @@
+package ru.otus.hw.completion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Names sorted by the text of their ids, so the ids starting with the typed digits form one contiguous range.
+// The index is immutable and is replaced as a whole when the names are reloaded
+public class IdCompletionIndex {
+
+    private final NavigableMap<String, String> namesByIdText = new TreeMap<>();
+
+    public IdCompletionIndex(Map<Long, String> namesById) {
+        namesById.forEach((id, name) -> namesByIdText.put(Long.toString(id), name));
+    }
+
+    // Returns at most limit ids (as text) starting with the prefix along with their names
+    public Map<String, String> findByPrefix(String prefix, int limit) {
+        var found = new LinkedHashMap<String, String>();
+        for (var entry : namesByIdText.tailMap(prefix, true).entrySet()) {
+            if (found.size() == limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            found.put(entry.getKey(), entry.getValue());
+        }
+        return found;
+    }
+
+    public int size() {
+        return namesByIdText.size();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.otus.hw.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// The reactive stack works with the same H2 database as the JDBC data source, so it sees the schema and data
+// prepared by Liquibase. The connection factory is deliberately not a bean: Boot backs off from configuring
+// the data source once there is one, and that is also why Boot R2DBC auto-configuration is excluded in application.yml
+@Profile("r2dbc")
+@Configuration
+public class R2dbcConfig {
+
+    private static final String H2_JDBC_URL_PREFIX = "jdbc:h2:";
+
+    @Bean
+    public DatabaseClient databaseClient(DataSource dataSource,
+                                         @Value("${spring.datasource.password:}") String password)
+            throws SQLException {
+        return DatabaseClient.create(createConnectionFactory(dataSource, password));
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(DatabaseClient databaseClient) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+    }
+
+    private static ConnectionFactory createConnectionFactory(DataSource dataSource, String password)
+            throws SQLException {
+        try (var connection = dataSource.getConnection()) {
+            var metaData = connection.getMetaData();
+            var url = metaData.getURL();
+            if (!url.startsWith(H2_JDBC_URL_PREFIX)) {
+                throw new IllegalStateException("Only H2 data sources are supported by R2DBC profile: " + url);
+            }
+            return new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                    .url(url.substring(H2_JDBC_URL_PREFIX.length()))
+                    .username(metaData.getUserName())
+                    .password(password)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.otus.hw.exceptions;
+
+public class BookImportException extends RuntimeException {
+    private final long importedBooksCount;
+
+    public BookImportException(String message, long importedBooksCount, Throwable cause) {
+        super(message, cause);
+        this.importedBooksCount = importedBooksCount;
+    }
+
+    public long getImportedBooksCount() {
+        return importedBooksCount;
+    }
+}
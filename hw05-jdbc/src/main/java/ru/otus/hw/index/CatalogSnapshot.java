@@ -0,0 +1,399 @@
+package ru.otus.hw.index;
+
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Immutable columnar copy of the whole catalog: the i-th book is described by the i-th elements of the arrays.
+// Authors and genres are shared, equal titles are deduplicated, genres of a book are bits over the genres array.
+// Books are materialized on reading only, so the snapshot itself holds no Book objects
+public final class CatalogSnapshot {
+
+    private final long version;
+
+    private final long changeId;
+
+    private final long[] bookIds;
+
+    private final String[] titles;
+
+    private final int[] authorIndexes;
+
+    private final Author[] authors;
+
+    private final long[] genreIds;
+
+    private final Genre[] genres;
+
+    private final int genresWords;
+
+    private final long[] genresBits;
+
+    private CatalogSnapshot(long version, long changeId, long[] bookIds, String[] titles, int[] authorIndexes,
+                            Author[] authors, Genre[] genres, long[] genresBits) {
+        this.version = version;
+        this.changeId = changeId;
+        this.bookIds = bookIds;
+        this.titles = titles;
+        this.authorIndexes = authorIndexes;
+        this.authors = authors;
+        this.genres = genres;
+        this.genreIds = Arrays.stream(genres).mapToLong(Genre::getId).toArray();
+        this.genresWords = wordsFor(genres.length);
+        this.genresBits = genresBits;
+    }
+
+    // The version counts writes seen by the process, the change id is the last database change the snapshot has
+    public static Builder builder(long version, long changeId) {
+        return new Builder(version, changeId);
+    }
+
+    // Counterpart of writeTo, the arrays are copied out of the buffer
+    public static CatalogSnapshot readFrom(ByteBuffer buffer, long version) {
+        var changeId = buffer.getLong();
+        var authors = new Author[buffer.getInt()];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = new Author(buffer.getLong(), readString(buffer));
+        }
+        var genres = new Genre[buffer.getInt()];
+        for (int i = 0; i < genres.length; i++) {
+            genres[i] = new Genre(buffer.getLong(), readString(buffer));
+        }
+        var distinctTitles = new String[buffer.getInt()];
+        for (int i = 0; i < distinctTitles.length; i++) {
+            distinctTitles[i] = readString(buffer);
+        }
+        var size = buffer.getInt();
+        var bookIds = new long[size];
+        buffer.asLongBuffer().get(bookIds);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        var titles = new String[size];
+        for (int i = 0; i < size; i++) {
+            var titleIndex = buffer.getInt();
+            titles[i] = titleIndex < 0 ? null : distinctTitles[titleIndex];
+        }
+        var authorIndexes = new int[size];
+        buffer.asIntBuffer().get(authorIndexes);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        var genresBits = new long[size * wordsFor(genres.length)];
+        buffer.asLongBuffer().get(genresBits);
+        buffer.position(buffer.position() + genresBits.length * Long.BYTES);
+        return new CatalogSnapshot(version, changeId, bookIds, titles, authorIndexes, authors, genres, genresBits);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long changeId() {
+        return changeId;
+    }
+
+    public int size() {
+        return bookIds.length;
+    }
+
+    public Optional<Book> findById(long id) {
+        var index = Arrays.binarySearch(bookIds, id);
+        return index < 0 ? Optional.empty() : Optional.of(bookAt(index));
+    }
+
+    public List<Book> findAll() {
+        var books = new ArrayList<Book>(bookIds.length);
+        for (int i = 0; i < bookIds.length; i++) {
+            books.add(bookAt(i));
+        }
+        return books;
+    }
+
+    // Copy of the snapshot with the given books replaced or added and the removed ones left out. The columns are
+    // merged as they are unless the saved books bring new genres, which shift the bits of all the books
+    public CatalogSnapshot withChanges(long newVersion, long newChangeId, Collection<Book> savedBooks,
+                                       Collection<Long> removedIds) {
+        var saved = new ArrayList<>(savedBooks);
+        saved.sort(Comparator.comparingLong(Book::getId));
+        var changedIds = new HashSet<>(removedIds);
+        saved.forEach(book -> changedIds.add(book.getId()));
+        var hasNewGenres = saved.stream()
+                .flatMap(book -> book.getGenres().stream())
+                .anyMatch(genre -> Arrays.binarySearch(genreIds, genre.getId()) < 0);
+        if (hasNewGenres) {
+            return rebuiltWithChanges(newVersion, newChangeId, saved, changedIds);
+        }
+        return new ColumnsMerge(newVersion, newChangeId, saved, changedIds).merge();
+    }
+
+    // Strings are written as UTF-8 bytes prefixed with their length, -1 stands for null
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(changeId);
+        out.writeInt(authors.length);
+        for (var author : authors) {
+            out.writeLong(author.getId());
+            writeString(out, author.getFullName());
+        }
+        out.writeInt(genres.length);
+        for (var genre : genres) {
+            out.writeLong(genre.getId());
+            writeString(out, genre.getName());
+        }
+        var titleIndexes = new HashMap<String, Integer>();
+        for (var title : titles) {
+            if (title != null) {
+                titleIndexes.putIfAbsent(title, titleIndexes.size());
+            }
+        }
+        var distinctTitles = new String[titleIndexes.size()];
+        titleIndexes.forEach((title, index) -> distinctTitles[index] = title);
+        out.writeInt(distinctTitles.length);
+        for (var title : distinctTitles) {
+            writeString(out, title);
+        }
+        out.writeInt(bookIds.length);
+        for (var bookId : bookIds) {
+            out.writeLong(bookId);
+        }
+        for (var title : titles) {
+            out.writeInt(title == null ? -1 : titleIndexes.get(title));
+        }
+        for (var authorIndex : authorIndexes) {
+            out.writeInt(authorIndex);
+        }
+        for (var bits : genresBits) {
+            out.writeLong(bits);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private CatalogSnapshot rebuiltWithChanges(long newVersion, long newChangeId, List<Book> saved,
+                                               Set<Long> changedIds) {
+        var builder = builder(newVersion, newChangeId);
+        var savedIndex = 0;
+        for (int i = 0; i < bookIds.length; i++) {
+            while (savedIndex < saved.size() && saved.get(savedIndex).getId() < bookIds[i]) {
+                builder.add(saved.get(savedIndex++));
+            }
+            if (!changedIds.contains(bookIds[i])) {
+                builder.add(bookAt(i));
+            }
+        }
+        saved.subList(savedIndex, saved.size()).forEach(builder::add);
+        return builder.build();
+    }
+
+    private Book bookAt(int index) {
+        var bookGenres = new ArrayList<Genre>();
+        var offset = index * genresWords;
+        for (int word = 0; word < genresWords; word++) {
+            for (var bits = genresBits[offset + word]; bits != 0; bits &= bits - 1) {
+                bookGenres.add(genres[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
+        return new Book(bookIds[index], titles[index], authors[authorIndexes[index]], bookGenres);
+    }
+
+    private static int wordsFor(int genresCount) {
+        return (genresCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private class ColumnsMerge {
+
+        private final long newVersion;
+
+        private final long newChangeId;
+
+        private final List<Book> saved;
+
+        private final Set<Long> changedIds;
+
+        private final List<Author> newAuthors = new ArrayList<>(Arrays.asList(authors));
+
+        private final Map<Long, Integer> authorIndexesById = new HashMap<>();
+
+        private final long[] newBookIds;
+
+        private final String[] newTitles;
+
+        private final int[] newAuthorIndexes;
+
+        private final long[] newGenresBits;
+
+        private int size;
+
+        ColumnsMerge(long newVersion, long newChangeId, List<Book> saved, Set<Long> changedIds) {
+            this.newVersion = newVersion;
+            this.newChangeId = newChangeId;
+            this.saved = saved;
+            this.changedIds = changedIds;
+            for (int i = 0; i < authors.length; i++) {
+                authorIndexesById.put(authors[i].getId(), i);
+            }
+            var maxSize = bookIds.length + saved.size();
+            newBookIds = new long[maxSize];
+            newTitles = new String[maxSize];
+            newAuthorIndexes = new int[maxSize];
+            newGenresBits = new long[maxSize * genresWords];
+        }
+
+        CatalogSnapshot merge() {
+            var savedIndex = 0;
+            for (int i = 0; i < bookIds.length; i++) {
+                while (savedIndex < saved.size() && saved.get(savedIndex).getId() < bookIds[i]) {
+                    addSaved(saved.get(savedIndex++));
+                }
+                if (!changedIds.contains(bookIds[i])) {
+                    addExisting(i);
+                }
+            }
+            saved.subList(savedIndex, saved.size()).forEach(this::addSaved);
+            return new CatalogSnapshot(newVersion, newChangeId, Arrays.copyOf(newBookIds, size),
+                    Arrays.copyOf(newTitles, size), Arrays.copyOf(newAuthorIndexes, size),
+                    newAuthors.toArray(Author[]::new), genres, Arrays.copyOf(newGenresBits, size * genresWords));
+        }
+
+        private void addExisting(int index) {
+            newBookIds[size] = bookIds[index];
+            newTitles[size] = titles[index];
+            newAuthorIndexes[size] = authorIndexes[index];
+            System.arraycopy(genresBits, index * genresWords, newGenresBits, size * genresWords, genresWords);
+            size++;
+        }
+
+        private void addSaved(Book book) {
+            newBookIds[size] = book.getId();
+            newTitles[size] = book.getTitle();
+            newAuthorIndexes[size] = authorIndexesById.computeIfAbsent(book.getAuthor().getId(), id -> {
+                newAuthors.add(book.getAuthor());
+                return newAuthors.size() - 1;
+            });
+            for (var genre : book.getGenres()) {
+                var genreIndex = Arrays.binarySearch(genreIds, genre.getId());
+                newGenresBits[size * genresWords + genreIndex / Long.SIZE] |= 1L << genreIndex;
+            }
+            size++;
+        }
+    }
+
+    // Books have to be added in ascending order of ids, as CatalogSnapshot looks them up by a binary search
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final long version;
+
+        private final long changeId;
+
+        private final Map<String, String> titles = new HashMap<>();
+
+        private final Map<Long, Integer> authorIndexes = new HashMap<>();
+
+        private final List<Author> authors = new ArrayList<>();
+
+        private final Map<Long, Integer> genreIndexes = new HashMap<>();
+
+        private final List<Genre> genres = new ArrayList<>();
+
+        private long[] bookIds = new long[INITIAL_CAPACITY];
+
+        private String[] bookTitles = new String[INITIAL_CAPACITY];
+
+        private int[] bookAuthors = new int[INITIAL_CAPACITY];
+
+        // Genres of the i-th book are bookGenres[bookGenresOffsets[i]..bookGenresOffsets[i + 1]), the final
+        // positions of genres are known only when all of them are collected
+        private int[] bookGenresOffsets = new int[INITIAL_CAPACITY + 1];
+
+        private int[] bookGenres = new int[INITIAL_CAPACITY];
+
+        private int size;
+
+        private Builder(long version, long changeId) {
+            this.version = version;
+            this.changeId = changeId;
+        }
+
+        public Builder add(Book book) {
+            if (size > 0 && bookIds[size - 1] >= book.getId()) {
+                throw new IllegalArgumentException("Book %d is added out of order".formatted(book.getId()));
+            }
+            if (size == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, size * 2);
+                bookTitles = Arrays.copyOf(bookTitles, size * 2);
+                bookAuthors = Arrays.copyOf(bookAuthors, size * 2);
+                bookGenresOffsets = Arrays.copyOf(bookGenresOffsets, size * 2 + 1);
+            }
+            bookIds[size] = book.getId();
+            bookTitles[size] = book.getTitle() == null ? null : titles.computeIfAbsent(book.getTitle(), t -> t);
+            bookAuthors[size] = authorIndexes.computeIfAbsent(book.getAuthor().getId(), id -> {
+                authors.add(book.getAuthor());
+                return authors.size() - 1;
+            });
+            var genresOffset = bookGenresOffsets[size];
+            if (genresOffset + book.getGenres().size() > bookGenres.length) {
+                bookGenres = Arrays.copyOf(bookGenres, Math.max(bookGenres.length * 2,
+                        genresOffset + book.getGenres().size()));
+            }
+            for (var genre : book.getGenres()) {
+                bookGenres[genresOffset++] = genreIndexes.computeIfAbsent(genre.getId(), id -> {
+                    genres.add(genre);
+                    return genres.size() - 1;
+                });
+            }
+            bookGenresOffsets[++size] = genresOffset;
+            return this;
+        }
+
+        public CatalogSnapshot build() {
+            var sortedGenres = genres.stream()
+                    .sorted(Comparator.comparingLong(Genre::getId))
+                    .toArray(Genre[]::new);
+            var sortedIndexes = new int[sortedGenres.length];
+            for (int i = 0; i < sortedGenres.length; i++) {
+                sortedIndexes[genreIndexes.get(sortedGenres[i].getId())] = i;
+            }
+            var genresWords = wordsFor(sortedGenres.length);
+            var genresBits = new long[size * genresWords];
+            for (int book = 0; book < size; book++) {
+                for (int i = bookGenresOffsets[book]; i < bookGenresOffsets[book + 1]; i++) {
+                    var genreIndex = sortedIndexes[bookGenres[i]];
+                    genresBits[book * genresWords + genreIndex / Long.SIZE] |= 1L << genreIndex;
+                }
+            }
+            return new CatalogSnapshot(version, changeId, Arrays.copyOf(bookIds, size), Arrays.copyOf(bookTitles, size),
+                    Arrays.copyOf(bookAuthors, size), authors.toArray(Author[]::new), sortedGenres, genresBits);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.otus.hw.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+// Snapshot file: magic, format version, database epoch and the snapshot itself. The file is written next to
+// the target and moved over it, so a reader never sees a half-written snapshot
+public final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x42435331;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private CatalogSnapshotFile() {
+    }
+
+    public static void write(Path file, String epoch, CatalogSnapshot snapshot) throws IOException {
+        var tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile),
+                WRITE_BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(epoch);
+            snapshot.writeTo(out);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Empty for a missing file or a file of another format
+    public static Optional<PersistedSnapshot> read(Path file, long version) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            var epochBytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(epochBytes);
+            var epoch = new String(epochBytes, StandardCharsets.UTF_8);
+            return Optional.of(new PersistedSnapshot(epoch, CatalogSnapshot.readFrom(buffer, version)));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot file %s is truncated".formatted(file), e);
+        }
+    }
+
+    public record PersistedSnapshot(String epoch, CatalogSnapshot snapshot) {
+    }
+}
@@ -0,0 +1,125 @@
+package ru.otus.hw.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compressed bitmaps of book ids per genre. Book ids have to fit into int, as roaring bitmaps are 32-bit.
+// The books filtered by NOT alone are taken from the books having at least one genre
+public class GenreBitmapIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, RoaringBitmap> booksByGenre = new HashMap<>();
+
+    private final RoaringBitmap allBooks = new RoaringBitmap();
+
+    public void add(long bookId, long genreId) {
+        lock.writeLock().lock();
+        try {
+            var bookIndex = Math.toIntExact(bookId);
+            booksByGenre.computeIfAbsent(genreId, key -> new RoaringBitmap()).add(bookIndex);
+            allBooks.add(bookIndex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(long bookId, Collection<Long> genresIds) {
+        lock.writeLock().lock();
+        try {
+            var bookIndex = Math.toIntExact(bookId);
+            removeBook(bookIndex);
+            for (var genreId : genresIds) {
+                booksByGenre.computeIfAbsent(genreId, key -> new RoaringBitmap()).add(bookIndex);
+                allBooks.add(bookIndex);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeBook(Math.toIntExact(bookId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            booksByGenre.clear();
+            allBooks.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Books having all of allOf genres, at least one of anyOf genres and none of noneOf genres;
+    // an empty set of genres does not restrict the result
+    public RoaringBitmap filter(Collection<Long> allOf, Collection<Long> anyOf, Collection<Long> noneOf) {
+        lock.readLock().lock();
+        try {
+            var result = allBooks.clone();
+            for (var genreId : allOf) {
+                result.and(booksOf(genreId));
+            }
+            if (!anyOf.isEmpty()) {
+                result.and(union(anyOf));
+            }
+            if (!noneOf.isEmpty()) {
+                result.andNot(union(noneOf));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of the given books in every genre they have, ordered by genre id
+    public Map<Long, Integer> facets(RoaringBitmap books) {
+        lock.readLock().lock();
+        try {
+            var facets = new TreeMap<Long, Integer>();
+            booksByGenre.forEach((genreId, genreBooks) -> {
+                var count = RoaringBitmap.andCardinality(books, genreBooks);
+                if (count > 0) {
+                    facets.put(genreId, count);
+                }
+            });
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return allBooks.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap booksOf(long genreId) {
+        return booksByGenre.getOrDefault(genreId, new RoaringBitmap());
+    }
+
+    private RoaringBitmap union(Collection<Long> genresIds) {
+        return RoaringBitmap.or(genresIds.stream().map(this::booksOf).iterator());
+    }
+
+    private void removeBook(int bookIndex) {
+        booksByGenre.values().forEach(genreBooks -> genreBooks.remove(bookIndex));
+        allBooks.remove(bookIndex);
+    }
+}
@@ -0,0 +1,281 @@
+package ru.otus.hw.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory trigram index over book titles. Every indexed title occupies a slot, the posting list of a trigram
+// holds slots in ascending order. A changed or removed title only abandons its slot, abandoned slots are skipped
+// on search and dropped by compaction once they make up half of the index
+public class TitleTrigramIndex {
+
+    private static final char TITLE_START = '\u0001';
+
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int GALLOP_SIZE_RATIO = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slotsByBookId = new HashMap<>();
+
+    private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+
+    private long[] bookIds = new long[INITIAL_CAPACITY];
+
+    private String[] titles = new String[INITIAL_CAPACITY];
+
+    private int slotsCount;
+
+    public void put(long bookId, String title) {
+        lock.writeLock().lock();
+        try {
+            abandonSlotOf(bookId);
+            addSlot(bookId, normalize(title));
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            abandonSlotOf(bookId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slotsByBookId.clear();
+            postingsByTrigram.clear();
+            bookIds = new long[INITIAL_CAPACITY];
+            titles = new String[INITIAL_CAPACITY];
+            slotsCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns ids of the books whose titles contain (or start with) the query ignoring case, in ascending order.
+    // Queries shorter than a trigram are answered by a scan over the indexed titles
+    public long[] search(String query, boolean prefixOnly) {
+        var normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty()) {
+            return new long[0];
+        }
+        var pattern = prefixOnly ? TITLE_START + normalizedQuery : normalizedQuery;
+        lock.readLock().lock();
+        try {
+            var candidateSlots = pattern.length() < TRIGRAM_LENGTH ? null : candidateSlotsOf(pattern);
+            var found = candidateSlots == null ? scanSlots(normalizedQuery, prefixOnly)
+                    : verifySlots(candidateSlots, normalizedQuery, prefixOnly);
+            Arrays.sort(found);
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalize(String title) {
+        return title == null ? "" : title.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigramsOf(String text) {
+        var trigrams = new LinkedHashSet<Long>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private void addSlot(long bookId, String normalizedTitle) {
+        if (slotsCount == titles.length) {
+            bookIds = Arrays.copyOf(bookIds, slotsCount * 2);
+            titles = Arrays.copyOf(titles, slotsCount * 2);
+        }
+        var slot = slotsCount++;
+        bookIds[slot] = bookId;
+        titles[slot] = normalizedTitle;
+        slotsByBookId.put(bookId, slot);
+        for (var trigram : trigramsOf(TITLE_START + normalizedTitle)) {
+            postingsByTrigram.computeIfAbsent(trigram, key -> new Postings()).add(slot);
+        }
+    }
+
+    private void abandonSlotOf(long bookId) {
+        var slot = slotsByBookId.remove(bookId);
+        if (slot != null) {
+            titles[slot] = null;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (slotsCount < INITIAL_CAPACITY || slotsByBookId.size() * 2 > slotsCount) {
+            return;
+        }
+        var liveBookIds = new long[slotsByBookId.size()];
+        var liveTitles = new String[slotsByBookId.size()];
+        var liveCount = 0;
+        for (int slot = 0; slot < slotsCount; slot++) {
+            if (titles[slot] != null) {
+                liveBookIds[liveCount] = bookIds[slot];
+                liveTitles[liveCount++] = titles[slot];
+            }
+        }
+        slotsByBookId.clear();
+        postingsByTrigram.clear();
+        bookIds = new long[Math.max(liveCount, INITIAL_CAPACITY)];
+        titles = new String[bookIds.length];
+        slotsCount = 0;
+        for (int i = 0; i < liveCount; i++) {
+            addSlot(liveBookIds[i], liveTitles[i]);
+        }
+    }
+
+    private Postings candidateSlotsOf(String pattern) {
+        var postings = new ArrayList<Postings>();
+        for (var trigram : trigramsOf(pattern)) {
+            var trigramPostings = postingsByTrigram.get(trigram);
+            if (trigramPostings == null) {
+                return new Postings();
+            }
+            postings.add(trigramPostings);
+        }
+        postings.sort(Comparator.comparingInt(Postings::size));
+        var candidates = postings.get(0);
+        for (int i = 1; i < postings.size() && candidates.size() > 0; i++) {
+            candidates = candidates.intersect(postings.get(i));
+        }
+        return candidates;
+    }
+
+    // Trigrams only narrow down the candidates, the title itself decides whether it matches
+    private long[] verifySlots(Postings candidateSlots, String normalizedQuery, boolean prefixOnly) {
+        var found = new long[candidateSlots.size()];
+        var foundCount = 0;
+        for (int i = 0; i < candidateSlots.size(); i++) {
+            var slot = candidateSlots.get(i);
+            if (matches(titles[slot], normalizedQuery, prefixOnly)) {
+                found[foundCount++] = bookIds[slot];
+            }
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    private long[] scanSlots(String normalizedQuery, boolean prefixOnly) {
+        var found = new long[16];
+        var foundCount = 0;
+        for (int slot = 0; slot < slotsCount; slot++) {
+            if (matches(titles[slot], normalizedQuery, prefixOnly)) {
+                if (foundCount == found.length) {
+                    found = Arrays.copyOf(found, foundCount * 2);
+                }
+                found[foundCount++] = bookIds[slot];
+            }
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    private static boolean matches(String title, String normalizedQuery, boolean prefixOnly) {
+        return title != null && (prefixOnly ? title.startsWith(normalizedQuery) : title.contains(normalizedQuery));
+    }
+
+    private static class Postings {
+
+        private int[] slots = new int[4];
+
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return slots[index];
+        }
+
+        // Slots are added in ascending order only, since a new slot is always the last one
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        // Merges lists of comparable sizes; otherwise walks this (smaller) list and gallops over the other one,
+        // so a rare trigram is cheap to intersect with a frequent one
+        Postings intersect(Postings other) {
+            var result = new Postings();
+            result.slots = new int[Math.max(size, 1)];
+            if (other.size / GALLOP_SIZE_RATIO < size) {
+                merge(other, result);
+            } else {
+                gallop(other, result);
+            }
+            return result;
+        }
+
+        private void merge(Postings other, Postings result) {
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                var slot = slots[i];
+                var otherSlot = other.slots[j];
+                if (slot == otherSlot) {
+                    result.slots[result.size++] = slot;
+                }
+                if (slot <= otherSlot) {
+                    i++;
+                }
+                if (slot >= otherSlot) {
+                    j++;
+                }
+            }
+        }
+
+        private void gallop(Postings other, Postings result) {
+            var from = 0;
+            for (int i = 0; i < size && from < other.size; i++) {
+                var slot = slots[i];
+                var to = from;
+                for (var step = 1; to < other.size && other.slots[to] < slot; step <<= 1) {
+                    from = to + 1;
+                    to += step;
+                }
+                var position = Arrays.binarySearch(other.slots, from, Math.min(to + 1, other.size), slot);
+                if (position >= 0) {
+                    result.slots[result.size++] = slot;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+        }
+    }
+}
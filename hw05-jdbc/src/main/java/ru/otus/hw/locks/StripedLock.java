@@ -0,0 +1,85 @@
+package ru.otus.hw.locks;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Fixed array of locks shared by all keys: a key always maps to the same stripe, so actions on the same key
+// are serialized, while actions on different keys only contend when their stripes collide
+public class StripedLock {
+
+    private final Lock[] stripes;
+
+    private final int mask;
+
+    public StripedLock(int stripesCount) {
+        if (stripesCount <= 0) {
+            throw new IllegalArgumentException("Stripes count must be positive");
+        }
+        var size = Integer.highestOneBit(stripesCount - 1) << 1;
+        stripes = new Lock[Math.max(size, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = stripes.length - 1;
+    }
+
+    public <T> T callLocked(long key, Supplier<T> action) {
+        var lock = stripes[stripeIndexOf(key)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stripes of several keys are taken in ascending order, so that callers locking overlapping sets of keys
+    // can not deadlock each other
+    public <T> T callLocked(Collection<Long> keys, Supplier<T> action) {
+        var stripeIndexes = keys.stream()
+                .mapToInt(this::stripeIndexOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        return callLockedStripes(stripeIndexes, action);
+    }
+
+    // For writes whose keys are known only while they run: all the stripes are taken, in the same order
+    public <T> T callLockedAll(Supplier<T> action) {
+        return callLockedStripes(IntStream.range(0, stripes.length).toArray(), action);
+    }
+
+    public void runLocked(long key, Runnable action) {
+        callLocked(key, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    private <T> T callLockedStripes(int[] stripeIndexes, Supplier<T> action) {
+        var locked = 0;
+        try {
+            for (; locked < stripeIndexes.length; locked++) {
+                stripes[stripeIndexes[locked]].lock();
+            }
+            return action.get();
+        } finally {
+            while (locked > 0) {
+                stripes[stripeIndexes[--locked]].unlock();
+            }
+        }
+    }
+
+    // Sequential ids are spread over the stripes by the bits mixing of Long.hashCode
+    private int stripeIndexOf(long key) {
+        var hash = Long.hashCode(key);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
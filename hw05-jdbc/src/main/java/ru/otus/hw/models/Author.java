@@ -1,14 +1,10 @@
 package ru.otus.hw.models;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+@Value
 public class Author {
-    private long id;
+    long id;
 
-    private String fullName;
+    String fullName;
 }
@@ -0,0 +1,5 @@
+package ru.otus.hw.models;
+
+// Epoch identifies the database the change ids belong to; changes up to prunedChangeId are no longer kept
+public record BookChangesState(String epoch, long lastChangeId, long prunedChangeId) {
+}
@@ -0,0 +1,4 @@
+package ru.otus.hw.models;
+
+public record BookGenreRelation(long bookId, long genreId) {
+}
@@ -0,0 +1,25 @@
+package ru.otus.hw.repositories;
+
+import ru.otus.hw.models.Book;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Denormalized read model of books: one row per book with the author name and the genres rendered in place
+public interface BookCatalogRepository {
+    Optional<Book> findById(long id);
+
+    List<Book> findAll();
+
+    List<Book> findAllByIds(Collection<Long> ids);
+
+    Stream<Book> streamAll();
+
+    void saveAll(List<Book> books);
+
+    void insertAll(List<Book> books);
+
+    void deleteAll();
+}
@@ -0,0 +1,16 @@
+package ru.otus.hw.repositories;
+
+import ru.otus.hw.models.BookChangesState;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface BookChangeLogRepository {
+    void append(Collection<Long> booksIds);
+
+    BookChangesState findState();
+
+    Set<Long> findChangedBooksIds(long afterChangeId);
+
+    void prune(long upToChangeId);
+}
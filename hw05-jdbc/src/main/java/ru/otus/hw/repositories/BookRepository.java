@@ -1,16 +1,39 @@
 package ru.otus.hw.repositories;
 
 import ru.otus.hw.models.Book;
+import ru.otus.hw.models.BookGenreRelation;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface BookRepository {
     Optional<Book> findById(long id);
 
     List<Book> findAll();
 
+    List<Book> findAllByIds(Set<Long> ids);
+
+    List<Book> findPage(long afterId, int limit);
+
+    Stream<Book> streamAll();
+
+    Stream<BookGenreRelation> streamAllGenreRelations();
+
     Book save(Book book);
 
+    List<Book> saveAll(List<Book> books);
+
+    List<Book> insertAll(List<Book> books);
+
     void deleteById(long id);
+
+    // Bulk operations return ids of the affected books
+    List<Long> deleteAllByIds(Collection<Long> ids);
+
+    List<Long> deleteAllByAuthorId(long authorId);
+
+    List<Long> replaceGenre(long fromGenreId, long toGenreId);
 }
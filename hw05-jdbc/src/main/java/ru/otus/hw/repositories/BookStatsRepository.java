@@ -0,0 +1,23 @@
+package ru.otus.hw.repositories;
+
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.BookGenreRelation;
+import ru.otus.hw.models.Genre;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Library-wide aggregates, each computed by the database in a single grouping pass
+public interface BookStatsRepository {
+    long countBooks();
+
+    long countBooksHavingGenres();
+
+    Map<Author, Long> countBooksByAuthor();
+
+    Map<Genre, Long> countBooksByGenre();
+
+    // Books are spread over the buckets by a hash of their ids, so the books of any buckets are a uniform sample.
+    // Relations of a book are adjacent
+    Stream<BookGenreRelation> streamGenreRelationsOfBuckets(int bucketsCount, int fromBucket, int toBucket);
+}
@@ -0,0 +1,54 @@
+package ru.otus.hw.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.cache.BoundedCache;
+import ru.otus.hw.cache.CacheStats;
+import ru.otus.hw.cache.ManagedCache;
+import ru.otus.hw.models.Author;
+
+import java.util.List;
+import java.util.Optional;
+
+@Primary
+@Repository
+public class CachingAuthorRepository implements AuthorRepository, ManagedCache {
+
+    private final AuthorRepository delegate;
+
+    private final BoundedCache<Long, Author> authors;
+
+    public CachingAuthorRepository(JdbcAuthorRepository delegate,
+                                   @Value("${app.cache.reference-data-max-size:10000}") int maxSize) {
+        this.delegate = delegate;
+        this.authors = new BoundedCache<>("authors", maxSize);
+    }
+
+    // Listings always come from the database and refresh the cached authors
+    @Override
+    public List<Author> findAll() {
+        var loaded = authors.load(delegate::findAll);
+        loaded.forEach(author -> authors.put(author.getId(), author));
+        return loaded;
+    }
+
+    @Override
+    public Optional<Author> findById(long id) {
+        return authors.get(id).or(() -> {
+            var loaded = authors.load(() -> delegate.findById(id));
+            loaded.ifPresent(author -> authors.put(id, author));
+            return loaded;
+        });
+    }
+
+    @Override
+    public CacheStats stats() {
+        return authors.stats();
+    }
+
+    @Override
+    public void evictAll() {
+        authors.evictAll();
+    }
+}
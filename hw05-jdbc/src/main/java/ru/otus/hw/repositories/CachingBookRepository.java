@@ -0,0 +1,264 @@
+package ru.otus.hw.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.otus.hw.cache.BoundedCache;
+import ru.otus.hw.cache.CacheStats;
+import ru.otus.hw.cache.ManagedCache;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.BookGenreRelation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+@Primary
+@Repository
+public class CachingBookRepository implements BookRepository, ManagedCache {
+
+    private final BookRepository delegate;
+
+    private final BoundedCache<Long, Book> books;
+
+    private final ConcurrentMap<Long, CompletableFuture<Optional<Book>>> loads = new ConcurrentHashMap<>();
+
+    public CachingBookRepository(JdbcBookRepository delegate,
+                                 @Value("${app.cache.books-max-size:10000}") int maxSize) {
+        this.delegate = delegate;
+        this.books = new BoundedCache<>("books", maxSize);
+    }
+
+    // Books are mutable, so the cache keeps its own copies and hands out new ones on every call.
+    // Concurrent misses of the same id wait for the single load already in flight
+    @Override
+    public Optional<Book> findById(long id) {
+        var cached = books.get(id);
+        if (cached.isPresent()) {
+            return cached.map(CachingBookRepository::copyOf);
+        }
+        var load = new CompletableFuture<Optional<Book>>();
+        var inFlightLoad = loads.putIfAbsent(id, load);
+        if (inFlightLoad != null) {
+            return await(inFlightLoad).map(CachingBookRepository::copyOf);
+        }
+        try {
+            var loaded = books.load(() -> delegate.findById(id));
+            // the load is not cached if the book was written while it was running
+            if (loads.remove(id, load)) {
+                loaded.ifPresent(book -> books.put(id, copyOf(book)));
+            }
+            load.complete(loaded.map(CachingBookRepository::copyOf));
+            return loaded;
+        } catch (RuntimeException e) {
+            loads.remove(id, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return delegate.findAll();
+    }
+
+    // Misses are loaded by a single call to the delegate, ids already being loaded by findById are awaited
+    @Override
+    public List<Book> findAllByIds(Set<Long> ids) {
+        if (isEmpty(ids)) {
+            return List.of();
+        }
+        var found = new HashMap<>(books.getAll(ids));
+        var ownLoads = new LinkedHashMap<Long, CompletableFuture<Optional<Book>>>();
+        var inFlightLoads = new HashMap<Long, CompletableFuture<Optional<Book>>>();
+        for (var id : ids) {
+            if (!found.containsKey(id)) {
+                var load = new CompletableFuture<Optional<Book>>();
+                var inFlightLoad = loads.putIfAbsent(id, load);
+                if (inFlightLoad == null) {
+                    ownLoads.put(id, load);
+                } else {
+                    inFlightLoads.put(id, inFlightLoad);
+                }
+            }
+        }
+        if (!ownLoads.isEmpty()) {
+            found.putAll(loadAll(ownLoads));
+        }
+        inFlightLoads.forEach((id, load) -> await(load).ifPresent(book -> found.put(id, book)));
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(CachingBookRepository::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<Book> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<BookGenreRelation> streamAllGenreRelations() {
+        return delegate.streamAllGenreRelations();
+    }
+
+    @Override
+    public Book save(Book book) {
+        return evictOnWrite(List.of(book.getId()), () -> delegate.save(book));
+    }
+
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        return evictOnWrite(books.stream().map(Book::getId).toList(), () -> delegate.saveAll(books));
+    }
+
+    @Override
+    public List<Book> insertAll(List<Book> books) {
+        return delegate.insertAll(books);
+    }
+
+    @Override
+    public void deleteById(long id) {
+        evictOnWrite(List.of(id), () -> {
+            delegate.deleteById(id);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Long> deleteAllByIds(Collection<Long> ids) {
+        return evictOnWrite(ids, () -> delegate.deleteAllByIds(ids));
+    }
+
+    @Override
+    public List<Long> deleteAllByAuthorId(long authorId) {
+        var deletedIds = delegate.deleteAllByAuthorId(authorId);
+        evictAfterCommit(deletedIds);
+        return deletedIds;
+    }
+
+    @Override
+    public List<Long> replaceGenre(long fromGenreId, long toGenreId) {
+        var changedIds = delegate.replaceGenre(fromGenreId, toGenreId);
+        evictAfterCommit(changedIds);
+        return changedIds;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return books.stats();
+    }
+
+    @Override
+    public void evictAll() {
+        loads.clear();
+        books.evictAll();
+    }
+
+    // Writes that bypass this repository, such as the reactive ones, are followed by their events.
+    // Evicting before the commit would let a concurrent reader cache the old row again
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBooksSaved(BooksSavedEvent event) {
+        evict(event.books().stream().map(Book::getId).toList());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        evict(event.booksIds());
+    }
+
+    // Evicts right away and once more after the write is committed: a book read by a concurrent caller
+    // between the write and its commit is the old one, and it must not stay in the cache
+    private <T> T evictOnWrite(Collection<Long> ids, Supplier<T> write) {
+        evict(ids);
+        var result = write.get();
+        evictAfterCommit(ids);
+        return result;
+    }
+
+    // Without a surrounding transaction the delegate has already committed its own one
+    private void evictAfterCommit(Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(ids);
+            }
+        });
+    }
+
+    private void evict(Collection<Long> ids) {
+        for (var id : ids) {
+            loads.remove(id);
+            books.evict(id);
+        }
+    }
+
+    private Map<Long, Book> loadAll(Map<Long, CompletableFuture<Optional<Book>>> ownLoads) {
+        try {
+            var loaded = books.load(() -> delegate.findAllByIds(ownLoads.keySet())).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            ownLoads.forEach((id, load) -> {
+                var book = Optional.ofNullable(loaded.get(id));
+                // the load is not cached if the book was written while it was running
+                if (loads.remove(id, load)) {
+                    book.ifPresent(value -> books.put(id, copyOf(value)));
+                }
+                load.complete(book.map(CachingBookRepository::copyOf));
+            });
+            return loaded;
+        } catch (RuntimeException e) {
+            ownLoads.forEach((id, load) -> {
+                loads.remove(id, load);
+                load.completeExceptionally(e);
+            });
+            throw e;
+        }
+    }
+
+    private static Optional<Book> await(CompletableFuture<Optional<Book>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Book copyOf(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), new ArrayList<>(book.getGenres()));
+    }
+}
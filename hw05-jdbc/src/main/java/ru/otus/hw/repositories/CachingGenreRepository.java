@@ -0,0 +1,70 @@
+package ru.otus.hw.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.cache.BoundedCache;
+import ru.otus.hw.cache.CacheStats;
+import ru.otus.hw.cache.ManagedCache;
+import ru.otus.hw.models.Genre;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+@Primary
+@Repository
+public class CachingGenreRepository implements GenreRepository, ManagedCache {
+
+    private final GenreRepository delegate;
+
+    private final BoundedCache<Long, Genre> genres;
+
+    public CachingGenreRepository(JdbcGenreRepository delegate,
+                                  @Value("${app.cache.reference-data-max-size:10000}") int maxSize) {
+        this.delegate = delegate;
+        this.genres = new BoundedCache<>("genres", maxSize);
+    }
+
+    // Listings always come from the database and refresh the cached genres
+    @Override
+    public List<Genre> findAll() {
+        var loaded = genres.load(delegate::findAll);
+        genres.putAll(loaded.stream().collect(Collectors.toMap(Genre::getId, Function.identity())));
+        return loaded;
+    }
+
+    @Override
+    public List<Genre> findAllByIds(Set<Long> ids) {
+        if (isEmpty(ids)) {
+            return List.of();
+        }
+        var cached = genres.getAll(ids);
+        var result = new ArrayList<>(cached.values());
+        if (cached.size() < ids.size()) {
+            var missingIds = ids.stream()
+                    .filter(id -> !cached.containsKey(id))
+                    .collect(Collectors.toSet());
+            var loaded = genres.load(() -> delegate.findAllByIds(missingIds));
+            loaded.forEach(genre -> genres.put(genre.getId(), genre));
+            result.addAll(loaded);
+        }
+        result.sort(Comparator.comparingLong(Genre::getId));
+        return result;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return genres.stats();
+    }
+
+    @Override
+    public void evictAll() {
+        genres.evictAll();
+    }
+}
@@ -0,0 +1,143 @@
+package ru.otus.hw.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+@ConditionalOnProperty(name = "app.book-catalog.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class JdbcBookCatalogRepository implements BookCatalogRepository {
+
+    private static final String BOOK_ID = "book_id";
+
+    private static final String TITLE = "title";
+
+    private static final String AUTHOR_ID = "author_id";
+
+    private static final String AUTHOR_FULL_NAME = "author_full_name";
+
+    private static final String GENRES = "genres";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String SELECT_CATALOG = """
+            select book_id, title, author_id, author_full_name, genres
+              from book_catalog
+            """;
+
+    private static final String INSERT_CATALOG = """
+            insert into book_catalog (book_id, title, author_id, author_full_name, genres)
+             values (:book_id, :title, :author_id, :author_full_name, :genres)
+            """;
+
+    private static final TypeReference<List<CatalogGenre>> CATALOG_GENRES_TYPE = new TypeReference<>() {
+    };
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public Optional<Book> findById(long id) {
+        var params = Collections.singletonMap(BOOK_ID, id);
+        var books = jdbc.query(SELECT_CATALOG + "where book_id = :book_id", params, catalogRowMapper());
+        return books.stream().findFirst();
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return jdbc.query(SELECT_CATALOG + "order by book_id", catalogRowMapper());
+    }
+
+    @Override
+    public List<Book> findAllByIds(Collection<Long> ids) {
+        var params = Collections.singletonMap(BOOK_ID, ids);
+        return jdbc.query(SELECT_CATALOG + "where book_id in (:book_id) order by book_id", params,
+                catalogRowMapper());
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return jdbc.getJdbcOperations().queryForStream(connection -> {
+            var statement = connection.prepareStatement(SELECT_CATALOG + "order by book_id");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, catalogRowMapper());
+    }
+
+    // Replaces catalog rows of the given books, which are expected to be read back from the normalized tables
+    @Override
+    public void saveAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        var params = Collections.singletonMap(BOOK_ID, books.stream().map(Book::getId).toList());
+        jdbc.update("delete from book_catalog where book_id in (:book_id)", params);
+        insertAll(books);
+    }
+
+    @Override
+    public void insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT_CATALOG, books.stream().map(this::catalogParams).toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Override
+    public void deleteAll() {
+        jdbc.getJdbcOperations().update("delete from book_catalog");
+    }
+
+    private MapSqlParameterSource catalogParams(Book book) {
+        var genres = book.getGenres().stream()
+                .map(genre -> new CatalogGenre(genre.getId(), genre.getName()))
+                .toList();
+        try {
+            return new MapSqlParameterSource(Map.of(BOOK_ID, book.getId(), TITLE, book.getTitle(),
+                    AUTHOR_ID, book.getAuthor().getId(), AUTHOR_FULL_NAME, book.getAuthor().getFullName(),
+                    GENRES, objectMapper.writeValueAsString(genres)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to render genres of book %d".formatted(book.getId()), e);
+        }
+    }
+
+    private RowMapper<Book> catalogRowMapper() {
+        return (rs, rowNum) -> new Book(rs.getLong(BOOK_ID), rs.getString(TITLE),
+                new Author(rs.getLong(AUTHOR_ID), rs.getString(AUTHOR_FULL_NAME)), parseGenres(rs));
+    }
+
+    private List<Genre> parseGenres(ResultSet rs) throws SQLException {
+        try {
+            var genres = new ArrayList<Genre>();
+            objectMapper.readValue(rs.getString(GENRES), CATALOG_GENRES_TYPE)
+                    .forEach(genre -> genres.add(new Genre(genre.id(), genre.name())));
+            return genres;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed catalog genres of book %d".formatted(rs.getLong(BOOK_ID)), e);
+        }
+    }
+
+    private record CatalogGenre(long id, String name) {
+    }
+}
@@ -0,0 +1,65 @@
+package ru.otus.hw.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.models.BookChangesState;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@ConditionalOnProperty(name = "app.catalog-snapshot.persistent", havingValue = "true")
+@RequiredArgsConstructor
+public class JdbcBookChangeLogRepository implements BookChangeLogRepository {
+
+    private static final String BOOK_ID = "book_id";
+
+    private static final String CHANGE_ID = "change_id";
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Override
+    public void append(Collection<Long> booksIds) {
+        if (booksIds.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("insert into book_changes(book_id) values (:book_id)", booksIds.stream()
+                .map(bookId -> new MapSqlParameterSource(BOOK_ID, bookId))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    // The identity of book_changes is never reset, so the last change id survives pruning of all the changes
+    @Override
+    public BookChangesState findState() {
+        return jdbc.getJdbcOperations().queryForObject("""
+                select s.epoch,
+                       coalesce((select max(c.id) from book_changes c), s.pruned_change_id) as last_change_id,
+                       s.pruned_change_id
+                  from catalog_state s
+                """, (rs, rowNum) -> new BookChangesState(rs.getString("epoch"), rs.getLong("last_change_id"),
+                rs.getLong("pruned_change_id")));
+    }
+
+    @Override
+    public Set<Long> findChangedBooksIds(long afterChangeId) {
+        var booksIds = new HashSet<Long>();
+        jdbc.query("select distinct book_id from book_changes where id > :change_id",
+                Map.of(CHANGE_ID, afterChangeId), rs -> {
+                    booksIds.add(rs.getLong(BOOK_ID));
+                });
+        return booksIds;
+    }
+
+    @Override
+    public void prune(long upToChangeId) {
+        var params = Map.of(CHANGE_ID, upToChangeId);
+        jdbc.update("delete from book_changes where id <= :change_id", params);
+        jdbc.update("update catalog_state set pruned_change_id = :change_id where pruned_change_id < :change_id",
+                params);
+    }
+}
@@ -1,30 +1,50 @@
 package ru.otus.hw.repositories;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.util.Pair;
 import org.springframework.jdbc.core.ResultSetExtractor;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
 import ru.otus.hw.exceptions.EntityNotFoundException;
 import ru.otus.hw.models.Author;
 import ru.otus.hw.models.Book;
+import ru.otus.hw.models.BookGenreRelation;
 import ru.otus.hw.models.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import static org.springframework.data.util.Pair.toMap;
-
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class JdbcBookRepository implements BookRepository {
@@ -41,190 +61,514 @@ public class JdbcBookRepository implements BookRepository {
 
     private static final String GENRE_NAME = "genre_name";
 
-    private final GenreRepository genreRepository;
+    private static final String PAGE_LIMIT = "page_limit";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final int IN_LIST_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_BOOK = """
+            insert into books (title, author_id) values (:book_title, :author_id)
+            """;
+
+    private static final String UPDATE_BOOK = """
+            update books b
+               set b.title = :book_title,
+               b.author_id = :author_id
+              where b.id = :book_id
+            """;
+
+    private static final String INSERT_GENRE_RELATION = """
+            insert into books_genres(book_id, genre_id)
+             values(:book_id, :genre_id)
+            """;
+
+    private static final String DELETE_GENRE_RELATION = """
+            delete from books_genres
+             where book_id = :book_id and genre_id = :genre_id
+            """;
+
+    private static final String BOOKS_IDS = "books_ids";
+
+    private static final String FROM_GENRE_ID = "from_genre_id";
+
+    private static final String TO_GENRE_ID = "to_genre_id";
+
+    private static final String ADD_REPLACING_GENRE = """
+            insert into books_genres(book_id, genre_id)
+            select bg.book_id, :to_genre_id
+              from books_genres bg
+             where bg.genre_id = :from_genre_id
+               and bg.book_id in (:books_ids)
+               and not exists (select 1
+                                 from books_genres t
+                                where t.book_id = bg.book_id
+                                  and t.genre_id = :to_genre_id)
+            """;
+
+    private static final String SELECT_BOOKS_WITH_GENRES = """
+            select b.id as book_id,
+                   b.title as book_title,
+                   b.author_id,
+                   a.full_name as author_full_name,
+                   bg.genre_id,
+                   g.name as genre_name
+              from books b
+              left outer join authors a on a.id = b.author_id
+              left outer join books_genres bg on bg.book_id = b.id
+              left outer join genres g on g.id = bg.genre_id
+            """;
+
+    private static final String SELECT_BOOKS = """
+            select b.id as book_id,
+                   b.title as book_title,
+                   b.author_id,
+                   a.full_name as author_full_name
+              from books b
+              left outer join authors a on a.id = b.author_id
+            """;
 
     private final NamedParameterJdbcOperations jdbc;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Present only when the book catalog read model is enabled
+    private final ObjectProvider<BookCatalogRepository> catalogRepository;
+
+    // Present only when the catalog snapshot is persisted and has to catch up with the changes on restart
+    private final ObjectProvider<BookChangeLogRepository> changeLogRepository;
+
+    // Relation rows written by the updates of books since the start, only the changed relations are counted
+    private final AtomicLong insertedGenresRelationsCount = new AtomicLong();
+
+    private final AtomicLong deletedGenresRelationsCount = new AtomicLong();
+
     @Override
     public Optional<Book> findById(long id) {
-            var params = Collections.singletonMap(BOOK_ID, id);
-            var sql = """
-                    select b.id as book_id,
-                           b.title as book_title,
-                           b.author_id,
-                           a.full_name as author_full_name,
-                           bg.genre_id,
-                           g.name as genre_name
-                     from books  b
-                    left outer join authors a on a.id = b.author_id
-                    left outer join books_genres bg on bg.book_id = b.id
-                    left outer join genres g on g.id = bg.genre_id
-                    where b.id = :book_id
-                    """;
-            return Optional.ofNullable(jdbc.query(sql, params, new BookResultSetExtractor()));
+        var catalog = catalogRepository.getIfAvailable();
+        if (catalog != null) {
+            return catalog.findById(id);
+        }
+        var params = Collections.singletonMap(BOOK_ID, id);
+        var sql = SELECT_BOOKS_WITH_GENRES + """
+                where b.id = :book_id
+                order by bg.genre_id
+                """;
+        var books = jdbc.query(sql, params, new BooksResultSetExtractor());
+        return books.stream().findFirst();
     }
 
+    // The whole catalog is read by three queries, each in the order of its primary key, and merged in memory.
+    // A single join repeats the book and author columns in every genre row, which costs more than the two extra
+    // statements save
     @Override
     public List<Book> findAll() {
-        var genres = genreRepository.findAll();
-        var relations = getAllGenreRelations();
-        var books = getAllBooksWithoutGenres();
-        mergeBooksInfo(books, genres, relations);
+        var catalog = catalogRepository.getIfAvailable();
+        if (catalog != null) {
+            return catalog.findAll();
+        }
+        var genresById = jdbc.query("select id, name from genres order by id",
+                        (rs, rowNum) -> new Genre(rs.getLong("id"), rs.getString("name"))).stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        var authors = new HashMap<Long, Author>();
+        var books = jdbc.query(SELECT_BOOKS + "order by b.id", (rs, rowNum) -> new Book(rs.getLong(BOOK_ID),
+                rs.getString(BOOK_TITLE), mapAuthor(rs, authors), new ArrayList<>()));
+        jdbc.query("select book_id, genre_id from books_genres order by book_id, genre_id", Map.of(),
+                new GenresMerger(books.iterator(), genresById));
         return books;
     }
 
+    // Every chunk of ids is loaded by a single join of books, authors and genres;
+    // the books are returned in the requested order, unknown ids are skipped
+    @Override
+    public List<Book> findAllByIds(Set<Long> ids) {
+        var requestedIds = List.copyOf(ids);
+        var catalog = catalogRepository.getIfAvailable();
+        var booksById = new HashMap<Long, Book>(requestedIds.size());
+        forEachChunk(requestedIds, chunkIds -> {
+            var books = catalog != null ? catalog.findAllByIds(chunkIds) : findAllByIdsChunk(chunkIds);
+            books.forEach(book -> booksById.put(book.getId(), book));
+        });
+        return requestedIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Book> findPage(long afterId, int limit) {
+        var params = Map.of(BOOK_ID, afterId, PAGE_LIMIT, limit);
+        var sql = SELECT_BOOKS_WITH_GENRES + """
+                where b.id in (select id from books
+                                where id > :book_id
+                                order by id
+                                limit :page_limit)
+                order by b.id
+                """;
+        return jdbc.query(sql, params, new BooksResultSetExtractor());
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        var sql = SELECT_BOOKS_WITH_GENRES + """
+                order by b.id
+                """;
+        var assembler = new BooksAssembler();
+        var completedBooks = jdbc.getJdbcOperations().queryForStream(connection -> {
+            var statement = connection.prepareStatement(sql);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (rs, rowNum) -> assembler.accept(rs));
+        return Stream.concat(completedBooks, Stream.of(assembler).map(BooksAssembler::finish))
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public Stream<BookGenreRelation> streamAllGenreRelations() {
+        return jdbc.getJdbcOperations().queryForStream(connection -> {
+            var statement = connection.prepareStatement("select book_id, genre_id from books_genres order by book_id");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (rs, rowNum) -> new BookGenreRelation(rs.getLong(BOOK_ID), rs.getLong(GENRE_ID)));
+    }
+
+    @Transactional
     @Override
     public Book save(Book book) {
-        if (book.getId() == 0) {
-            return insert(book);
+        var savedBook = book.getId() == 0 ? insert(book) : update(book);
+        refreshCatalogOf(List.of(savedBook));
+        logChangesOf(List.of(savedBook.getId()));
+        eventPublisher.publishEvent(new BooksSavedEvent(List.of(savedBook)));
+        return savedBook;
+    }
+
+    @Transactional
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        var newBooks = books.stream().filter(book -> book.getId() == 0).toList();
+        var existingBooks = books.stream().filter(book -> book.getId() != 0).toList();
+        insertAll(newBooks);
+        updateAll(existingBooks);
+        return books;
+    }
+
+    @Transactional
+    @Override
+    public List<Book> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return books;
+        }
+        var keyHolder = new GeneratedKeyHolder();
+        var params = books.stream().map(JdbcBookRepository::bookParams).toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate(INSERT_BOOK, params, keyHolder, new String[]{"id"});
+
+        var keys = keyHolder.getKeyList();
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).setId(((Number) keys.get(i).get("id")).longValue());
         }
-        return update(book);
+        batchUpdateGenresRelations(INSERT_GENRE_RELATION, books.stream()
+                .flatMap(book -> genresRelationsParams(book.getId(), genresIdsOf(book))));
+        refreshCatalogOf(books);
+        logChangesOf(books.stream().map(Book::getId).toList());
+        eventPublisher.publishEvent(new BooksSavedEvent(books));
+        return books;
     }
 
+    // Catalog rows of the book are removed by the cascading foreign key
+    @Transactional
     @Override
     public void deleteById(long id) {
         var params = Collections.singletonMap(BOOK_ID, id);
-        jdbc.update("delete from books where id = :book_id", params);
+        if (jdbc.update("delete from books where id = :book_id", params) > 0) {
+            logChangesOf(List.of(id));
+            eventPublisher.publishEvent(new BooksDeletedEvent(List.of(id)));
+        }
     }
 
-    private List<Book> getAllBooksWithoutGenres() {
-        return jdbc.query("""
-                        select b.id as book_id,
-                               b.title as book_title,
-                               b.author_id,
-                               a.full_name as author_full_name
-                         from books b
-                          left outer join authors a on b.author_id = a.id
-                        """,
-                new JdbcBookRepository.BookRowMapper());
+    // Existing ids are selected first, so that only the books actually deleted are reported
+    @Transactional
+    @Override
+    public List<Long> deleteAllByIds(Collection<Long> ids) {
+        var deletedIds = new ArrayList<Long>();
+        forEachChunk(List.copyOf(new LinkedHashSet<>(ids)), chunkIds -> {
+            var params = Collections.singletonMap(BOOKS_IDS, chunkIds);
+            var existingIds = jdbc.queryForList("select id from books where id in (:books_ids)", params, Long.class);
+            if (!existingIds.isEmpty()) {
+                jdbc.update("delete from books where id in (:books_ids)", params);
+                deletedIds.addAll(existingIds);
+            }
+        });
+        if (!deletedIds.isEmpty()) {
+            logChangesOf(deletedIds);
+            eventPublisher.publishEvent(new BooksDeletedEvent(deletedIds));
+        }
+        return deletedIds;
     }
 
-    private List<BookGenreRelation> getAllGenreRelations() {
-        return jdbc.query("select book_id, genre_id from books_genres",
-                new BookGenreRelationRowMapper());
+    @Transactional
+    @Override
+    public List<Long> deleteAllByAuthorId(long authorId) {
+        var booksIds = jdbc.queryForList("select id from books where author_id = :author_id order by id",
+                Collections.singletonMap(AUTHOR_ID, authorId), Long.class);
+        return deleteAllByIds(booksIds);
     }
 
-    private void mergeBooksInfo(List<Book> booksWithoutGenres, List<Genre> genres,
-                                List<BookGenreRelation> relations) {
-
-        var genresByGenreId = genres.stream()
-                .map(genre -> Pair.of(genre.getId(), genre))
-                .collect(toMap());
-
-        var genresByBookId = relations.stream().collect(
-                Collectors.groupingBy(
-                        relation -> relation.bookId,
-                        Collectors.mapping(
-                                relation -> genresByGenreId.get(relation.genreId),
-                                Collectors.toList()
-                        )
-                )
-        );
-
-        for (var book : booksWithoutGenres) {
-            var bookGenres = genresByBookId.getOrDefault(book.getId(), Collections.emptyList());
-            book.setGenres(bookGenres);
+    // Per chunk of books, the target genre is added where it is missing and the replaced one is removed
+    @Transactional
+    @Override
+    public List<Long> replaceGenre(long fromGenreId, long toGenreId) {
+        var booksIds = jdbc.queryForList("select book_id from books_genres where genre_id = :from_genre_id "
+                + "order by book_id", Collections.singletonMap(FROM_GENRE_ID, fromGenreId), Long.class);
+        var changedBooks = new ArrayList<Book>(booksIds.size());
+        forEachChunk(booksIds, chunkIds -> {
+            var params = Map.of(BOOKS_IDS, chunkIds, FROM_GENRE_ID, fromGenreId, TO_GENRE_ID, toGenreId);
+            jdbc.update(ADD_REPLACING_GENRE, params);
+            jdbc.update("delete from books_genres where genre_id = :from_genre_id and book_id in (:books_ids)",
+                    params);
+            changedBooks.addAll(findAllByIdsChunk(chunkIds));
+        });
+        if (!changedBooks.isEmpty()) {
+            refreshCatalogOf(changedBooks);
+            logChangesOf(booksIds);
+            eventPublisher.publishEvent(new BooksSavedEvent(changedBooks));
         }
+        return booksIds;
     }
 
     private Book insert(Book book) {
         var keyHolder = new GeneratedKeyHolder();
-        var params = new MapSqlParameterSource(
-                Map.of(AUTHOR_ID, book.getAuthor().getId(), BOOK_TITLE, book.getTitle())
-        );
-        jdbc.update("insert into books (title, author_id) values (:book_title, :author_id)",
-                params, keyHolder);
+        jdbc.update(INSERT_BOOK, bookParams(book), keyHolder);
         Optional.ofNullable(keyHolder.getKeyAs(Long.class)).ifPresent(book::setId);
-        batchInsertGenresRelationsFor(book);
+        batchUpdateGenresRelations(INSERT_GENRE_RELATION, genresRelationsParams(book.getId(), genresIdsOf(book)));
         return book;
     }
 
     private Book update(Book book) {
-        var params = new MapSqlParameterSource(Map.of(AUTHOR_ID, book.getAuthor().getId(),
-                BOOK_TITLE, book.getTitle(), BOOK_ID, book.getId()));
-        var updatedRowsCount = jdbc.update("""
-                update books b
-                   set b.title = :book_title,
-                   b.author_id = :author_id
-                  where b.id = :book_id
-                """, params);
+        var updatedRowsCount = jdbc.update(UPDATE_BOOK, bookParams(book));
 
         if (updatedRowsCount == 0) {
             var message = "Book with id %d is not found for update".formatted(book.getId());
             throw new EntityNotFoundException(message);
         }
-        removeGenresRelationsFor(book);
-        batchInsertGenresRelationsFor(book);
+        syncGenresRelationsFor(List.of(book));
 
         return book;
     }
 
-    private void batchInsertGenresRelationsFor(Book book) {
-        var params = book.getGenres().stream().map(genre ->
-                new MapSqlParameterSource(Map.of(BOOK_ID, book.getId(), GENRE_ID, genre.getId())));
-        jdbc.batchUpdate("""
-                insert into books_genres(book_id, genre_id)
-                 values(:book_id, :genre_id)
-                """, params.toArray(MapSqlParameterSource[]::new));
+    private void updateAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        var params = books.stream().map(JdbcBookRepository::bookParams).toArray(MapSqlParameterSource[]::new);
+        var updatedRowsCounts = jdbc.batchUpdate(UPDATE_BOOK, params);
+
+        var notFoundIds = IntStream.range(0, books.size())
+                .filter(i -> updatedRowsCounts[i] == 0)
+                .mapToObj(i -> books.get(i).getId())
+                .toList();
+        if (!notFoundIds.isEmpty()) {
+            throw new EntityNotFoundException("Books with ids %s are not found for update".formatted(notFoundIds));
+        }
+        syncGenresRelationsFor(books);
+        refreshCatalogOf(books);
+        logChangesOf(books.stream().map(Book::getId).toList());
+        eventPublisher.publishEvent(new BooksSavedEvent(books));
     }
 
-    private void removeGenresRelationsFor(Book book) {
-        var params = Collections.singletonMap(BOOK_ID, book.getId());
-        jdbc.update("delete from books_genres where book_id = :book_id", params);
+    GenresRelationsSyncStats getGenresRelationsSyncStats() {
+        return new GenresRelationsSyncStats(insertedGenresRelationsCount.get(), deletedGenresRelationsCount.get());
     }
 
-    private static class BookRowMapper implements RowMapper<Book> {
+    private void syncGenresRelationsFor(List<Book> books) {
+        var targetGenresIds = new LinkedHashMap<Long, Set<Long>>();
+        books.forEach(book -> targetGenresIds.put(book.getId(), genresIdsOf(book)));
+        var currentGenresIds = findGenresIdsByBookIds(targetGenresIds.keySet());
+
+        var addedRelations = new ArrayList<MapSqlParameterSource>();
+        var removedRelations = new ArrayList<MapSqlParameterSource>();
+        targetGenresIds.forEach((bookId, genresIds) -> {
+            var currentBookGenresIds = currentGenresIds.getOrDefault(bookId, Collections.emptySet());
+            genresIds.stream()
+                    .filter(genreId -> !currentBookGenresIds.contains(genreId))
+                    .forEach(genreId -> addedRelations.add(genresRelationParams(bookId, genreId)));
+            currentBookGenresIds.stream()
+                    .filter(genreId -> !genresIds.contains(genreId))
+                    .forEach(genreId -> removedRelations.add(genresRelationParams(bookId, genreId)));
+        });
+
+        var insertedRowsCount = batchUpdateGenresRelations(INSERT_GENRE_RELATION, addedRelations.stream());
+        var deletedRowsCount = batchUpdateGenresRelations(DELETE_GENRE_RELATION, removedRelations.stream());
+        insertedGenresRelationsCount.addAndGet(insertedRowsCount);
+        deletedGenresRelationsCount.addAndGet(deletedRowsCount);
+        log.debug("Genres relations of {} books synced: {} rows inserted, {} rows deleted",
+                targetGenresIds.size(), insertedRowsCount, deletedRowsCount);
+    }
 
-        @Override
-        public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
-            var id = rs.getLong(BOOK_ID);
-            var title = rs.getString(BOOK_TITLE);
-            var authorId = rs.getLong(AUTHOR_ID);
-            var authorFullName = rs.getString(AUTHOR_FULL_NAME);
-            var author = new Author(authorId, authorFullName);
-            var genres = Collections.<Genre>emptyList();
-            return new Book(id, title, author, genres);
+    // Catalog rows are rendered from the books read back within the same transaction rather than from the saved
+    // objects, so they reflect the actual author and genres names
+    private void refreshCatalogOf(List<Book> books) {
+        var catalog = catalogRepository.getIfAvailable();
+        if (catalog == null || books.isEmpty()) {
+            return;
         }
+        forEachChunk(books.stream().map(Book::getId).toList(),
+                chunkIds -> catalog.saveAll(findAllByIdsChunk(chunkIds)));
     }
 
+    private static void forEachChunk(List<Long> ids, Consumer<List<Long>> action) {
+        for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK_SIZE) {
+            action.accept(ids.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, ids.size())));
+        }
+    }
+
+    private void logChangesOf(List<Long> booksIds) {
+        changeLogRepository.ifAvailable(changeLog -> changeLog.append(booksIds));
+    }
+
+    private List<Book> findAllByIdsChunk(Collection<Long> ids) {
+        var params = Collections.singletonMap(BOOK_ID, ids);
+        var sql = SELECT_BOOKS_WITH_GENRES + """
+                where b.id in (:book_id)
+                order by b.id
+                """;
+        return jdbc.query(sql, params, new BooksResultSetExtractor());
+    }
+
+    private Map<Long, Set<Long>> findGenresIdsByBookIds(Collection<Long> bookIds) {
+        var genresIds = new HashMap<Long, Set<Long>>();
+        forEachChunk(List.copyOf(bookIds), chunkIds -> {
+            var params = Collections.singletonMap(BOOK_ID, chunkIds);
+            jdbc.query("select book_id, genre_id from books_genres where book_id in (:book_id)", params, rs -> {
+                genresIds.computeIfAbsent(rs.getLong(BOOK_ID), bookId -> new HashSet<>()).add(rs.getLong(GENRE_ID));
+            });
+        });
+        return genresIds;
+    }
+
+    private int batchUpdateGenresRelations(String sql, Stream<MapSqlParameterSource> relationsParams) {
+        var params = relationsParams.toArray(MapSqlParameterSource[]::new);
+        if (params.length == 0) {
+            return 0;
+        }
+        return Arrays.stream(jdbc.batchUpdate(sql, params)).sum();
+    }
+
+    private static Stream<MapSqlParameterSource> genresRelationsParams(long bookId, Collection<Long> genresIds) {
+        return genresIds.stream().map(genreId -> genresRelationParams(bookId, genreId));
+    }
+
+    private static MapSqlParameterSource genresRelationParams(long bookId, long genreId) {
+        return new MapSqlParameterSource(Map.of(BOOK_ID, bookId, GENRE_ID, genreId));
+    }
+
+    private static MapSqlParameterSource bookParams(Book book) {
+        return new MapSqlParameterSource(Map.of(AUTHOR_ID, book.getAuthor().getId(),
+                BOOK_TITLE, book.getTitle(), BOOK_ID, book.getId()));
+    }
+
+    private static Set<Long> genresIdsOf(Book book) {
+        return book.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static Author mapAuthor(ResultSet rs, Map<Long, Author> authors) throws SQLException {
+        var authorId = rs.getLong(AUTHOR_ID);
+        var author = authors.get(authorId);
+        if (author == null) {
+            author = new Author(authorId, rs.getString(AUTHOR_FULL_NAME));
+            authors.put(authorId, author);
+        }
+        return author;
+    }
+
+    record GenresRelationsSyncStats(long insertedCount, long deletedCount) {
+    }
+
+    // Both the books and the relations must be ordered by book id, so each book is found by moving forward only
     @RequiredArgsConstructor
-    private static class BookResultSetExtractor implements ResultSetExtractor<Book> {
+    private static class GenresMerger implements RowCallbackHandler {
+
+        private final Iterator<Book> books;
+
+        private final Map<Long, Genre> genresById;
+
+        private Book current;
 
         @Override
-        public Book extractData(ResultSet rs) throws SQLException, DataAccessException {
-            if (!rs.isBeforeFirst()) {
-                return null;
+        public void processRow(ResultSet rs) throws SQLException {
+            var bookId = rs.getLong(BOOK_ID);
+            while (current == null || current.getId() < bookId) {
+                current = books.next();
             }
-            long bookId = 0;
-            String bookTitle = null;
-            Author author = null;
-            List<Genre> genres = new ArrayList<>();
+            current.getGenres().add(genresById.get(rs.getLong(GENRE_ID)));
+        }
+    }
+
+    private static class BooksResultSetExtractor implements ResultSetExtractor<List<Book>> {
+
+        @Override
+        public List<Book> extractData(ResultSet rs) throws SQLException, DataAccessException {
+            var books = new ArrayList<Book>();
+            var assembler = new BooksAssembler();
             while (rs.next()) {
-                if (bookId == 0) {
-                    bookId = rs.getLong(BOOK_ID);
-                }
-                if (bookTitle == null) {
-                    bookTitle = rs.getString(BOOK_TITLE);
+                var completedBook = assembler.accept(rs);
+                if (completedBook != null) {
+                    books.add(completedBook);
                 }
-                if (author == null) {
-                    author = new Author(rs.getLong(AUTHOR_ID), rs.getString(AUTHOR_FULL_NAME));
-                }
-                genres.add(new Genre(rs.getLong(GENRE_ID), rs.getString(GENRE_NAME)));
             }
-            return new Book(bookId, bookTitle, author, genres);
+            var lastBook = assembler.finish();
+            if (lastBook != null) {
+                books.add(lastBook);
+            }
+            return books;
         }
     }
 
-    private record BookGenreRelation(long bookId, long genreId) {
-    }
+    private static class BooksAssembler {
 
-    private static class BookGenreRelationRowMapper implements RowMapper<BookGenreRelation> {
+        private final Map<Long, Author> authors = new HashMap<>();
 
-        @Override
-        public BookGenreRelation mapRow(ResultSet rs, int rowNum) throws SQLException {
+        private final Map<Long, Genre> genres = new HashMap<>();
+
+        private Book current;
+
+        // Rows must be ordered by book id; returns the previous book once the rows of the next one begin.
+        // Genres are sorted per book here, so the query is not forced to sort the whole join by genre id
+        Book accept(ResultSet rs) throws SQLException {
+            Book completed = null;
             var bookId = rs.getLong(BOOK_ID);
+            if (current == null || current.getId() != bookId) {
+                completed = complete(current);
+                current = new Book(bookId, rs.getString(BOOK_TITLE), mapAuthor(rs, authors), new ArrayList<>());
+            }
             var genreId = rs.getLong(GENRE_ID);
-            return new BookGenreRelation(bookId, genreId);
+            if (!rs.wasNull()) {
+                current.getGenres().add(mapGenre(rs, genreId));
+            }
+            return completed;
+        }
+
+        Book finish() {
+            var last = complete(current);
+            current = null;
+            return last;
+        }
+
+        private static Book complete(Book book) {
+            if (book != null && book.getGenres().size() > 1) {
+                book.getGenres().sort(Comparator.comparingLong(Genre::getId));
+            }
+            return book;
+        }
+
+        private Genre mapGenre(ResultSet rs, long genreId) throws SQLException {
+            var genre = genres.get(genreId);
+            if (genre == null) {
+                genre = new Genre(genreId, rs.getString(GENRE_NAME));
+                genres.put(genreId, genre);
+            }
+            return genre;
         }
     }
 }
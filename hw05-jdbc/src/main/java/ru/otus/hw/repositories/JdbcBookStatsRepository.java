@@ -0,0 +1,89 @@
+package ru.otus.hw.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.BookGenreRelation;
+import ru.otus.hw.models.Genre;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Repository
+@RequiredArgsConstructor
+public class JdbcBookStatsRepository implements BookStatsRepository {
+
+    private static final String BOOKS_COUNT = "books_count";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Override
+    public long countBooks() {
+        return count("select count(*) from books");
+    }
+
+    @Override
+    public long countBooksHavingGenres() {
+        return count("select count(distinct book_id) from books_genres");
+    }
+
+    @Override
+    public Map<Author, Long> countBooksByAuthor() {
+        var counts = new LinkedHashMap<Author, Long>();
+        jdbc.getJdbcOperations().query("""
+                select a.id, a.full_name, count(b.id) as books_count
+                  from authors a
+                  left outer join books b on b.author_id = a.id
+                 group by a.id, a.full_name
+                 order by a.id
+                """, rs -> {
+            counts.put(new Author(rs.getLong("id"), rs.getString("full_name")), rs.getLong(BOOKS_COUNT));
+        });
+        return counts;
+    }
+
+    @Override
+    public Map<Genre, Long> countBooksByGenre() {
+        var counts = new LinkedHashMap<Genre, Long>();
+        jdbc.getJdbcOperations().query("""
+                select g.id, g.name, count(bg.book_id) as books_count
+                  from genres g
+                  left outer join books_genres bg on bg.genre_id = g.id
+                 group by g.id, g.name
+                 order by g.id
+                """, rs -> {
+            counts.put(new Genre(rs.getLong("id"), rs.getString("name")), rs.getLong(BOOKS_COUNT));
+        });
+        return counts;
+    }
+
+    // The buckets are filtered while the primary key is read in its order, so the rows are returned as they are
+    // found, without sorting the whole table first
+    @Override
+    public Stream<BookGenreRelation> streamGenreRelationsOfBuckets(int bucketsCount, int fromBucket, int toBucket) {
+        return jdbc.getJdbcOperations().queryForStream(connection -> {
+            var statement = connection.prepareStatement("""
+                    select book_id, genre_id
+                      from books_genres
+                     where mod(ora_hash(book_id), ?) >= ?
+                       and mod(ora_hash(book_id), ?) < ?
+                     order by book_id, genre_id
+                    """);
+            statement.setInt(1, bucketsCount);
+            statement.setInt(2, fromBucket);
+            statement.setInt(3, bucketsCount);
+            statement.setInt(4, toBucket);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (rs, rowNum) -> new BookGenreRelation(rs.getLong("book_id"), rs.getLong("genre_id")));
+    }
+
+    private long count(String sql) {
+        var count = jdbc.getJdbcOperations().queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}
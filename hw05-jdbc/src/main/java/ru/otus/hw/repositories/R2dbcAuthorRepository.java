@@ -0,0 +1,37 @@
+package ru.otus.hw.repositories;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.otus.hw.models.Author;
+
+@Profile("r2dbc")
+@Repository
+@RequiredArgsConstructor
+public class R2dbcAuthorRepository implements ReactiveAuthorRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Author> findAll() {
+        return databaseClient.sql("select id, full_name from authors order by id")
+                .map(R2dbcAuthorRepository::mapAuthor)
+                .all();
+    }
+
+    @Override
+    public Mono<Author> findById(long id) {
+        return databaseClient.sql("select id, full_name from authors where id = :id")
+                .bind("id", id)
+                .map(R2dbcAuthorRepository::mapAuthor)
+                .one();
+    }
+
+    private static Author mapAuthor(Readable row) {
+        return new Author(row.get("id", Long.class), row.get("full_name", String.class));
+    }
+}
@@ -0,0 +1,179 @@
+package ru.otus.hw.repositories;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Non-blocking counterpart of JdbcBookRepository. Writes publish the same events, so the in-memory indexes
+// follow them; the book catalog table and the changes log are maintained by the JDBC repository only
+@Profile("r2dbc")
+@Repository
+@RequiredArgsConstructor
+public class R2dbcBookRepository implements ReactiveBookRepository {
+
+    private static final String BOOK_ID = "book_id";
+
+    private static final String BOOK_TITLE = "book_title";
+
+    private static final String AUTHOR_ID = "author_id";
+
+    private static final String GENRES_IDS = "genres_ids";
+
+    private static final String SELECT_BOOKS_WITH_GENRES = """
+            select b.id as book_id,
+                   b.title as book_title,
+                   b.author_id,
+                   a.full_name as author_full_name,
+                   bg.genre_id,
+                   g.name as genre_name
+              from books b
+              left outer join authors a on a.id = b.author_id
+              left outer join books_genres bg on bg.book_id = b.id
+              left outer join genres g on g.id = bg.genre_id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Mono<Book> findById(long id) {
+        return databaseClient.sql(SELECT_BOOKS_WITH_GENRES + "where b.id = :book_id")
+                .bind(BOOK_ID, id)
+                .map(R2dbcBookRepository::mapRow)
+                .all()
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .map(R2dbcBookRepository::toBook);
+    }
+
+    // Rows of a book are adjacent as they are ordered by book id, so books are assembled on the fly
+    // and rows are requested from the driver only as fast as the subscriber consumes the books
+    @Override
+    public Flux<Book> findAll() {
+        return databaseClient.sql(SELECT_BOOKS_WITH_GENRES + "order by b.id")
+                .map(R2dbcBookRepository::mapRow)
+                .all()
+                .bufferUntilChanged(BookRow::bookId)
+                .map(R2dbcBookRepository::toBook);
+    }
+
+    @Override
+    public Mono<Book> save(Book book) {
+        var genresIds = book.getGenres().stream().map(Genre::getId).collect(Collectors.toSet());
+        var savedBookId = (book.getId() == 0 ? insert(book) : update(book))
+                .flatMap(bookId -> syncGenresRelations(bookId, genresIds).thenReturn(bookId));
+        return transactionalOperator.transactional(savedBookId)
+                .map(bookId -> new Book(bookId, book.getTitle(), book.getAuthor(), book.getGenres()))
+                .doOnNext(savedBook -> eventPublisher.publishEvent(new BooksSavedEvent(List.of(savedBook))));
+    }
+
+    @Override
+    public Mono<Void> deleteById(long id) {
+        var deletedRowsCount = databaseClient.sql("delete from books where id = :book_id")
+                .bind(BOOK_ID, id)
+                .fetch()
+                .rowsUpdated();
+        return transactionalOperator.transactional(deletedRowsCount)
+                .filter(count -> count > 0)
+                .doOnNext(count -> eventPublisher.publishEvent(new BooksDeletedEvent(List.of(id))))
+                .then();
+    }
+
+    private Mono<Long> insert(Book book) {
+        return databaseClient.sql("insert into books (title, author_id) values (:book_title, :author_id)")
+                .bind(BOOK_TITLE, book.getTitle())
+                .bind(AUTHOR_ID, book.getAuthor().getId())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    private Mono<Long> update(Book book) {
+        return databaseClient.sql("update books set title = :book_title, author_id = :author_id where id = :book_id")
+                .bind(BOOK_TITLE, book.getTitle())
+                .bind(AUTHOR_ID, book.getAuthor().getId())
+                .bind(BOOK_ID, book.getId())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(count -> count == 0
+                        ? Mono.error(new EntityNotFoundException("Book with id %d is not found for update"
+                        .formatted(book.getId())))
+                        : Mono.just(book.getId()));
+    }
+
+    // Only the changed relations are touched: one statement adds the missing ones, another removes the stale ones
+    private Mono<Void> syncGenresRelations(long bookId, Set<Long> genresIds) {
+        return databaseClient.sql("select genre_id from books_genres where book_id = :book_id")
+                .bind(BOOK_ID, bookId)
+                .map(row -> row.get("genre_id", Long.class))
+                .all()
+                .collect(Collectors.toSet())
+                .flatMap(currentGenresIds -> {
+                    var addedGenresIds = new HashSet<>(genresIds);
+                    addedGenresIds.removeAll(currentGenresIds);
+                    var removedGenresIds = new HashSet<>(currentGenresIds);
+                    removedGenresIds.removeAll(genresIds);
+                    return updateRelations("""
+                            insert into books_genres (book_id, genre_id)
+                            select :book_id, id from genres where id in (:genres_ids)
+                            """, bookId, addedGenresIds)
+                            .then(updateRelations("""
+                                    delete from books_genres
+                                     where book_id = :book_id and genre_id in (:genres_ids)
+                                    """, bookId, removedGenresIds));
+                });
+    }
+
+    private Mono<Void> updateRelations(String sql, long bookId, Set<Long> genresIds) {
+        if (genresIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.sql(sql)
+                .bind(BOOK_ID, bookId)
+                .bind(GENRES_IDS, genresIds)
+                .then();
+    }
+
+    private static BookRow mapRow(Readable row) {
+        return new BookRow(row.get(BOOK_ID, Long.class), row.get(BOOK_TITLE, String.class),
+                row.get(AUTHOR_ID, Long.class), row.get("author_full_name", String.class),
+                row.get("genre_id", Long.class), row.get("genre_name", String.class));
+    }
+
+    private static Book toBook(List<BookRow> rows) {
+        var first = rows.get(0);
+        var genres = new ArrayList<Genre>(rows.size());
+        rows.stream()
+                .filter(row -> row.genreId() != null)
+                .map(row -> new Genre(row.genreId(), row.genreName()))
+                .sorted(Comparator.comparingLong(Genre::getId))
+                .forEach(genres::add);
+        return new Book(first.bookId(), first.title(), new Author(first.authorId(), first.authorFullName()), genres);
+    }
+
+    private record BookRow(long bookId, String title, long authorId, String authorFullName, Long genreId,
+                           String genreName) {
+    }
+}
@@ -0,0 +1,41 @@
+package ru.otus.hw.repositories;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import ru.otus.hw.models.Genre;
+
+import java.util.Set;
+
+@Profile("r2dbc")
+@Repository
+@RequiredArgsConstructor
+public class R2dbcGenreRepository implements ReactiveGenreRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Genre> findAll() {
+        return databaseClient.sql("select id, name from genres order by id")
+                .map(R2dbcGenreRepository::mapGenre)
+                .all();
+    }
+
+    @Override
+    public Flux<Genre> findAllByIds(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("select id, name from genres where id in (:ids) order by id")
+                .bind("ids", ids)
+                .map(R2dbcGenreRepository::mapGenre)
+                .all();
+    }
+
+    private static Genre mapGenre(Readable row) {
+        return new Genre(row.get("id", Long.class), row.get("name", String.class));
+    }
+}
@@ -0,0 +1,12 @@
+package ru.otus.hw.repositories;
+
+import reactor.core.publisher.Flux;
+import ru.otus.hw.models.Genre;
+
+import java.util.Set;
+
+public interface ReactiveGenreRepository {
+    Flux<Genre> findAll();
+
+    Flux<Genre> findAllByIds(Set<Long> ids);
+}
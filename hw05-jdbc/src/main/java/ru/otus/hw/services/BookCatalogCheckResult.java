@@ -0,0 +1,13 @@
+package ru.otus.hw.services;
+
+import java.time.Duration;
+import java.util.List;
+
+// Only the first inconsistencies are listed, inconsistenciesCount holds the total number
+public record BookCatalogCheckResult(long booksCount, long inconsistenciesCount, List<String> inconsistencies,
+                                     Duration checkTime) {
+
+    public boolean isConsistent() {
+        return inconsistenciesCount == 0;
+    }
+}
@@ -0,0 +1,6 @@
+package ru.otus.hw.services;
+
+import java.time.Duration;
+
+public record BookCatalogRebuildResult(long booksCount, Duration rebuildTime) {
+}
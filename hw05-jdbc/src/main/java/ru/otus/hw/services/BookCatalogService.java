@@ -0,0 +1,7 @@
+package ru.otus.hw.services;
+
+public interface BookCatalogService {
+    BookCatalogRebuildResult rebuild();
+
+    BookCatalogCheckResult check();
+}
@@ -0,0 +1,111 @@
+package ru.otus.hw.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.repositories.BookCatalogRepository;
+import ru.otus.hw.repositories.BookRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@ConditionalOnProperty(name = "app.book-catalog.enabled", havingValue = "true")
+public class BookCatalogServiceImpl implements BookCatalogService {
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private static final int MAX_LISTED_INCONSISTENCIES = 20;
+
+    private final BookRepository bookRepository;
+
+    private final BookCatalogRepository catalogRepository;
+
+    // The catalog is not maintained while disabled, so the rows of books saved, changed or deleted meanwhile are
+    // stale on the next start. The catalog has no versions of rows, so it is compared with the books as a whole
+    @Transactional
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuildIfInconsistent() {
+        var checkResult = check();
+        if (!checkResult.isConsistent()) {
+            log.info("{} catalog rows are inconsistent with books, the first ones: {}",
+                    checkResult.inconsistenciesCount(), checkResult.inconsistencies());
+            var result = rebuild();
+            log.info("Catalog of {} books rebuilt in {} ms", result.booksCount(), result.rebuildTime().toMillis());
+        }
+    }
+
+    @Transactional
+    @Override
+    public BookCatalogRebuildResult rebuild() {
+        var startedAt = System.nanoTime();
+        catalogRepository.deleteAll();
+        long booksCount = 0;
+        try (var books = bookRepository.streamAll()) {
+            var chunk = new ArrayList<Book>(REBUILD_CHUNK_SIZE);
+            for (var iterator = books.iterator(); iterator.hasNext(); ) {
+                chunk.add(iterator.next());
+                if (chunk.size() == REBUILD_CHUNK_SIZE) {
+                    catalogRepository.insertAll(chunk);
+                    booksCount += chunk.size();
+                    chunk = new ArrayList<>(REBUILD_CHUNK_SIZE);
+                }
+            }
+            catalogRepository.insertAll(chunk);
+            booksCount += chunk.size();
+        }
+        return new BookCatalogRebuildResult(booksCount, Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    // Both streams are ordered by book id, so they are compared by a merge without loading either of them
+    @Transactional(readOnly = true)
+    @Override
+    public BookCatalogCheckResult check() {
+        var startedAt = System.nanoTime();
+        var inconsistencies = new ArrayList<String>();
+        long inconsistenciesCount = 0;
+        long booksCount = 0;
+        try (var books = bookRepository.streamAll(); var catalogBooks = catalogRepository.streamAll()) {
+            var booksIterator = books.iterator();
+            var catalogIterator = catalogBooks.iterator();
+            var book = nextOrNull(booksIterator);
+            var catalogBook = nextOrNull(catalogIterator);
+            while (book != null || catalogBook != null) {
+                String inconsistency = null;
+                if (catalogBook == null || book != null && book.getId() < catalogBook.getId()) {
+                    inconsistency = "Book %d is missing in the catalog".formatted(book.getId());
+                    book = nextOrNull(booksIterator);
+                    booksCount++;
+                } else if (book == null || catalogBook.getId() < book.getId()) {
+                    inconsistency = "Catalog row of book %d has no book".formatted(catalogBook.getId());
+                    catalogBook = nextOrNull(catalogIterator);
+                } else {
+                    if (!book.equals(catalogBook)) {
+                        inconsistency = "Catalog row %s differs from book %s".formatted(catalogBook, book);
+                    }
+                    book = nextOrNull(booksIterator);
+                    catalogBook = nextOrNull(catalogIterator);
+                    booksCount++;
+                }
+                if (inconsistency != null && inconsistenciesCount++ < MAX_LISTED_INCONSISTENCIES) {
+                    inconsistencies.add(inconsistency);
+                }
+            }
+        }
+        return new BookCatalogCheckResult(booksCount, inconsistenciesCount, List.copyOf(inconsistencies),
+                Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private static Book nextOrNull(Iterator<Book> books) {
+        return books.hasNext() ? books.next() : null;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public record BookFilterResult(List<Book> books, long foundCount, Map<Genre, Integer> genresFacets,
+                               Duration filterTime) {
+}
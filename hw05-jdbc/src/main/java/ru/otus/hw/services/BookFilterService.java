@@ -0,0 +1,9 @@
+package ru.otus.hw.services;
+
+import java.util.Set;
+
+public interface BookFilterService {
+    BookFilterResult filterByGenres(Set<Long> allOf, Set<Long> anyOf, Set<Long> noneOf, int limit);
+
+    long countByGenres(Set<Long> allOf, Set<Long> anyOf, Set<Long> noneOf);
+}
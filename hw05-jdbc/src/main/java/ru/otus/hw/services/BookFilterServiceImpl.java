@@ -0,0 +1,109 @@
+package ru.otus.hw.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.index.GenreBitmapIndex;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.BookRepository;
+import ru.otus.hw.repositories.GenreRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BookFilterServiceImpl implements BookFilterService {
+    private final BookRepository bookRepository;
+
+    private final GenreRepository genreRepository;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final GenreBitmapIndex genreIndex = new GenreBitmapIndex();
+
+    @Transactional(readOnly = true)
+    @EventListener(ContextRefreshedEvent.class)
+    public void buildIndex() {
+        var startedAt = System.nanoTime();
+        genreIndex.clear();
+        try (var relations = bookRepository.streamAllGenreRelations()) {
+            relations.forEach(relation -> genreIndex.add(relation.bookId(), relation.genreId()));
+        }
+        log.info("Genres of {} books indexed in {} ms", genreIndex.size(),
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksSaved(BooksSavedEvent event) {
+        event.books().forEach(book -> genreIndex.put(book.getId(),
+                book.getGenres().stream().map(Genre::getId).toList()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        event.booksIds().forEach(genreIndex::remove);
+    }
+
+    @Override
+    public BookFilterResult filterByGenres(Set<Long> allOf, Set<Long> anyOf, Set<Long> noneOf, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Filter limit must be positive");
+        }
+        checkGenresGiven(allOf, anyOf, noneOf);
+        var startedAt = System.nanoTime();
+        var foundIds = genreIndex.filter(allOf, anyOf, noneOf);
+        var facets = genreIndex.facets(foundIds);
+        var filterTime = Duration.ofNanos(System.nanoTime() - startedAt);
+
+        var genresById = genreRepository.findAllByIds(facets.keySet()).stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        // A genre deleted after its books were indexed has no name to show, so its facet is skipped
+        var genresFacets = new LinkedHashMap<Genre, Integer>();
+        facets.forEach((genreId, count) -> {
+            var genre = genresById.get(genreId);
+            if (genre != null) {
+                genresFacets.put(genre, count);
+            } else {
+                log.debug("Facet of missing genre {} with {} books skipped", genreId, count);
+            }
+        });
+
+        var booksIds = foundIds.stream()
+                .limit(limit)
+                .asLongStream()
+                .boxed()
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        var books = catalogSnapshotService.findCurrent()
+                .map(snapshot -> booksIds.stream()
+                        .map(snapshot::findById)
+                        .flatMap(Optional::stream)
+                        .toList())
+                .orElseGet(() -> bookRepository.findAllByIds(booksIds));
+        return new BookFilterResult(books, foundIds.getLongCardinality(), genresFacets, filterTime);
+    }
+
+    @Override
+    public long countByGenres(Set<Long> allOf, Set<Long> anyOf, Set<Long> noneOf) {
+        checkGenresGiven(allOf, anyOf, noneOf);
+        return genreIndex.filter(allOf, anyOf, noneOf).getLongCardinality();
+    }
+
+    private static void checkGenresGiven(Set<Long> allOf, Set<Long> anyOf, Set<Long> noneOf) {
+        if (allOf.isEmpty() && anyOf.isEmpty() && noneOf.isEmpty()) {
+            throw new IllegalArgumentException("At least one genre must be given");
+        }
+    }
+}
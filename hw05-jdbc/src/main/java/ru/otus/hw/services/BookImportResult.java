@@ -0,0 +1,11 @@
+package ru.otus.hw.services;
+
+import java.time.Duration;
+
+public record BookImportResult(long booksCount, long chunksCount, Duration elapsed) {
+
+    public double booksPerSecond() {
+        var elapsedNanos = Math.max(elapsed.toNanos(), 1);
+        return booksCount * 1_000_000_000d / elapsedNanos;
+    }
+}
@@ -0,0 +1,289 @@
+package ru.otus.hw.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.otus.hw.exceptions.BookImportException;
+import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.AuthorRepository;
+import ru.otus.hw.repositories.BookRepository;
+import ru.otus.hw.repositories.GenreRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+@RequiredArgsConstructor
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final String CSV_HEADER = "title,author_id,genre_ids";
+
+    private static final int CSV_FIELDS_COUNT = 3;
+
+    private static final char CSV_QUOTE = '"';
+
+    private static final char CSV_SEPARATOR = ',';
+
+    private static final String CSV_GENRES_IDS_SEPARATOR = "\\|";
+
+    private final AuthorRepository authorRepository;
+
+    private final GenreRepository genreRepository;
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    // Every chunk is committed on its own to keep transactions short, so a failure leaves the preceding
+    // chunks imported; their books count is reported by BookImportException. A record may span several lines
+    // when a quoted CSV field contains line breaks, it is reported by the line it starts at
+    @Override
+    public BookImportResult importBooks(Path file, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        var format = formatOf(file);
+        var authors = authorRepository.findAll().stream()
+                .collect(Collectors.toMap(Author::getId, Function.identity()));
+        var genres = genreRepository.findAll().stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+
+        var startedAt = System.nanoTime();
+        long booksCount = 0;
+        long chunksCount = 0;
+        var lineNumber = 0;
+        var recordLineNumber = 0;
+        try (var reader = Files.newBufferedReader(file)) {
+            var chunk = new BooksChunk(chunkSize);
+            var record = new StringBuilder();
+            for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (!record.isEmpty()) {
+                    record.append('\n');
+                } else if (line.isBlank() || CSV_HEADER.equals(line)) {
+                    continue;
+                } else {
+                    recordLineNumber = lineNumber;
+                }
+                record.append(line);
+                if (format.isIncomplete().test(record)) {
+                    continue;
+                }
+                var importedBook = parseRecord(format, record.toString(), recordLineNumber);
+                chunk.add(toBook(importedBook, recordLineNumber, authors, genres), recordLineNumber, lineNumber);
+                record.setLength(0);
+                if (chunk.isFull()) {
+                    booksCount += insertChunk(file, chunk, booksCount);
+                    chunksCount++;
+                }
+            }
+            if (!record.isEmpty()) {
+                throw new IllegalArgumentException("Unterminated quoted field of the book at line %d"
+                        .formatted(recordLineNumber));
+            }
+            if (!chunk.isEmpty()) {
+                booksCount += insertChunk(file, chunk, booksCount);
+                chunksCount++;
+            }
+        } catch (BookImportException e) {
+            throw e;
+        } catch (IOException e) {
+            throw importFailure(file, "line " + lineNumber, booksCount, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            throw importFailure(file, "line " + recordLineNumber, booksCount, e);
+        }
+        return new BookImportResult(booksCount, chunksCount, Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private static BookImportException importFailure(Path file, String position, long importedBooksCount,
+                                                     RuntimeException cause) {
+        return new BookImportException("Import of %s stopped at %s, %d books were imported before: %s"
+                .formatted(file, position, importedBooksCount, cause.getMessage()), importedBooksCount, cause);
+    }
+
+    // None of the books of a failed chunk are imported, so the failure is reported by the lines of the whole chunk
+    private int insertChunk(Path file, BooksChunk chunk, long importedBooksCount) {
+        var lines = "lines %d-%d".formatted(chunk.firstLineNumber, chunk.lastLineNumber);
+        var books = chunk.takeBooks();
+        try {
+            transactionTemplate.executeWithoutResult(status -> bookRepository.insertAll(books));
+        } catch (RuntimeException e) {
+            throw importFailure(file, lines, importedBooksCount, e);
+        }
+        return books.size();
+    }
+
+    private BooksFormat formatOf(Path file) {
+        var fileName = file.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".csv")) {
+            return new BooksFormat(this::parseCsvRecord, BookImportServiceImpl::hasOpenQuote);
+        }
+        if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+            return new BooksFormat(this::parseJsonLine, record -> false);
+        }
+        throw new IllegalArgumentException("Unsupported books file %s, expected .csv or .ndjson".formatted(file));
+    }
+
+    private static ImportedBook parseRecord(BooksFormat format, String record, int lineNumber) {
+        try {
+            return format.parser().apply(record);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed book at line %d: %s".formatted(lineNumber, record), e);
+        }
+    }
+
+    // title,author_id,genre_ids where genre ids are separated by '|'. Fields are quoted as in RFC 4180: a title
+    // with commas, quotes or line breaks is enclosed in double quotes, and a quote inside it is doubled
+    private ImportedBook parseCsvRecord(String record) {
+        var fields = splitCsvRecord(record);
+        if (fields.size() != CSV_FIELDS_COUNT) {
+            throw new IllegalArgumentException("Expected %d fields, found %d"
+                    .formatted(CSV_FIELDS_COUNT, fields.size()));
+        }
+        var authorId = Long.parseLong(fields.get(1).trim());
+        var genresIds = Arrays.stream(fields.get(2).split(CSV_GENRES_IDS_SEPARATOR))
+                .map(String::trim)
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+        return new ImportedBook(fields.get(0), authorId, genresIds);
+    }
+
+    private static List<String> splitCsvRecord(String record) {
+        var fields = new ArrayList<String>(CSV_FIELDS_COUNT);
+        var field = new StringBuilder();
+        var fieldStart = 0;
+        var quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            var c = record.charAt(i);
+            if (quoted) {
+                if (c != CSV_QUOTE) {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == CSV_QUOTE) {
+                    field.append(CSV_QUOTE);
+                    i++;
+                } else if (i + 1 < record.length() && record.charAt(i + 1) != CSV_SEPARATOR) {
+                    throw new IllegalArgumentException("Unexpected text after the quoted field at position %d"
+                            .formatted(i + 2));
+                } else {
+                    quoted = false;
+                }
+            } else if (c == CSV_SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = i + 1;
+            } else if (c == CSV_QUOTE && i == fieldStart) {
+                quoted = true;
+            } else if (c == CSV_QUOTE) {
+                throw new IllegalArgumentException("Unexpected quote at position %d".formatted(i + 1));
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Doubled quotes inside a field keep the count even, so an odd count means a quoted field goes on
+    private static boolean hasOpenQuote(CharSequence record) {
+        return record.chars().filter(c -> c == CSV_QUOTE).count() % 2 != 0;
+    }
+
+    // {"title": "...", "authorId": 1, "genresIds": [1, 6]}
+    private ImportedBook parseJsonLine(String line) {
+        try {
+            return objectMapper.readValue(line, ImportedBook.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        }
+    }
+
+    private static Book toBook(ImportedBook importedBook, int lineNumber,
+                               Map<Long, Author> authors, Map<Long, Genre> genres) {
+        if (isEmpty(importedBook.genresIds())) {
+            throw new IllegalArgumentException("Genres ids must not be null at line %d".formatted(lineNumber));
+        }
+        var author = authors.get(importedBook.authorId());
+        if (author == null) {
+            throw new EntityNotFoundException("Author with id %d not found at line %d"
+                    .formatted(importedBook.authorId(), lineNumber));
+        }
+        var bookGenres = new ArrayList<Genre>(importedBook.genresIds().size());
+        for (var genreId : importedBook.genresIds()) {
+            var genre = genres.get(genreId);
+            if (genre == null) {
+                throw new EntityNotFoundException("Genre with id %d not found at line %d"
+                        .formatted(genreId, lineNumber));
+            }
+            bookGenres.add(genre);
+        }
+        return new Book(0, importedBook.title(), author, bookGenres);
+    }
+
+    private record ImportedBook(String title, long authorId, Set<Long> genresIds) {
+    }
+
+    private record BooksFormat(Function<String, ImportedBook> parser, Predicate<CharSequence> isIncomplete) {
+    }
+
+    private static class BooksChunk {
+
+        private final int capacity;
+
+        private List<Book> books;
+
+        private int firstLineNumber;
+
+        private int lastLineNumber;
+
+        BooksChunk(int capacity) {
+            this.capacity = capacity;
+            this.books = new ArrayList<>(capacity);
+        }
+
+        void add(Book book, int fromLineNumber, int toLineNumber) {
+            if (books.isEmpty()) {
+                firstLineNumber = fromLineNumber;
+            }
+            books.add(book);
+            lastLineNumber = toLineNumber;
+        }
+
+        boolean isFull() {
+            return books.size() == capacity;
+        }
+
+        boolean isEmpty() {
+            return books.isEmpty();
+        }
+
+        // The taken list is handed over to the repository as is, the chunk goes on with a new one
+        List<Book> takeBooks() {
+            var taken = books;
+            books = new ArrayList<>(capacity);
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.models.Book;
+
+import java.time.Duration;
+import java.util.List;
+
+public record BookSearchResult(List<Book> books, long foundCount, Duration searchTime) {
+}
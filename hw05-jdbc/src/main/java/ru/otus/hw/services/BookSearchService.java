@@ -0,0 +1,5 @@
+package ru.otus.hw.services;
+
+public interface BookSearchService {
+    BookSearchResult searchByTitle(String query, boolean prefixOnly, int limit);
+}
@@ -0,0 +1,66 @@
+package ru.otus.hw.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.index.TitleTrigramIndex;
+import ru.otus.hw.repositories.BookRepository;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+    private final BookRepository bookRepository;
+
+    private final TitleTrigramIndex titleIndex = new TitleTrigramIndex();
+
+    @Transactional(readOnly = true)
+    @EventListener(ContextRefreshedEvent.class)
+    public void buildIndex() {
+        var startedAt = System.nanoTime();
+        titleIndex.clear();
+        try (var books = bookRepository.streamAll()) {
+            books.forEach(book -> titleIndex.put(book.getId(), book.getTitle()));
+        }
+        log.info("Titles of {} books indexed in {} ms", titleIndex.size(),
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksSaved(BooksSavedEvent event) {
+        event.books().forEach(book -> titleIndex.put(book.getId(), book.getTitle()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        event.booksIds().forEach(titleIndex::remove);
+    }
+
+    @Override
+    public BookSearchResult searchByTitle(String query, boolean prefixOnly, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive");
+        }
+        var startedAt = System.nanoTime();
+        var foundIds = titleIndex.search(query, prefixOnly);
+        var searchTime = Duration.ofNanos(System.nanoTime() - startedAt);
+
+        var booksIds = Arrays.stream(foundIds)
+                .limit(limit)
+                .boxed()
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        var books = bookRepository.findAllByIds(booksIds);
+        return new BookSearchResult(books, foundIds.length, searchTime);
+    }
+}
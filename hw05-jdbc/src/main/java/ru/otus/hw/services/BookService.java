@@ -11,9 +11,19 @@ public interface BookService {
 
     List<Book> findAll();
 
+    List<Book> findAllByIds(Set<Long> ids);
+
+    List<Book> findPage(long afterId, int limit);
+
     Book insert(String title, long authorId, Set<Long> genresIds);
 
     Book update(long id, String title, long authorId, Set<Long> genresIds);
 
     void deleteById(long id);
+
+    int deleteAllByIds(Set<Long> ids);
+
+    int deleteAllByAuthorId(long authorId);
+
+    int replaceGenre(long fromGenreId, long toGenreId);
 }
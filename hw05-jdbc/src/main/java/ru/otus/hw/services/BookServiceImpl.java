@@ -1,8 +1,10 @@
 package ru.otus.hw.services;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.index.CatalogSnapshot;
+import ru.otus.hw.locks.StripedLock;
 import ru.otus.hw.models.Book;
 import ru.otus.hw.repositories.AuthorRepository;
 import ru.otus.hw.repositories.BookRepository;
@@ -14,7 +16,6 @@ import java.util.Set;
 
 import static org.springframework.util.CollectionUtils.isEmpty;
 
-@RequiredArgsConstructor
 @Service
 public class BookServiceImpl implements BookService {
     private final AuthorRepository authorRepository;
@@ -23,14 +24,51 @@ public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
 
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    // Writes of the same book are serialized in-process, so that concurrent updates do not interleave
+    // their genres relations diffs. The lock is held until the repository transaction is committed,
+    // bulk writes hold the stripes of all the books they may change
+    private final StripedLock bookLocks;
+
+    public BookServiceImpl(AuthorRepository authorRepository, GenreRepository genreRepository,
+                           BookRepository bookRepository, CatalogSnapshotService catalogSnapshotService,
+                           @Value("${app.book-locks.stripes:64}") int lockStripes) {
+        this.authorRepository = authorRepository;
+        this.genreRepository = genreRepository;
+        this.bookRepository = bookRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.bookLocks = new StripedLock(lockStripes);
+    }
+
     @Override
     public Optional<Book> findById(long id) {
-        return bookRepository.findById(id);
+        return catalogSnapshotService.findCurrent()
+                .map(snapshot -> snapshot.findById(id))
+                .orElseGet(() -> bookRepository.findById(id));
     }
 
     @Override
     public List<Book> findAll() {
-        return bookRepository.findAll();
+        return catalogSnapshotService.findCurrent()
+                .map(CatalogSnapshot::findAll)
+                .orElseGet(bookRepository::findAll);
+    }
+
+    @Override
+    public List<Book> findAllByIds(Set<Long> ids) {
+        if (isEmpty(ids)) {
+            throw new IllegalArgumentException("Books ids must not be empty");
+        }
+        return bookRepository.findAllByIds(ids);
+    }
+
+    @Override
+    public List<Book> findPage(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        return bookRepository.findPage(afterId, limit);
     }
 
     @Override
@@ -40,12 +78,41 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public Book update(long id, String title, long authorId, Set<Long> genresIds) {
-        return save(id, title, authorId, genresIds);
+        return bookLocks.callLocked(id, () -> save(id, title, authorId, genresIds));
     }
 
     @Override
     public void deleteById(long id) {
-        bookRepository.deleteById(id);
+        bookLocks.runLocked(id, () -> bookRepository.deleteById(id));
+    }
+
+    @Override
+    public int deleteAllByIds(Set<Long> ids) {
+        if (isEmpty(ids)) {
+            throw new IllegalArgumentException("Books ids must not be empty");
+        }
+        return bookLocks.callLocked(ids, () -> bookRepository.deleteAllByIds(ids)).size();
+    }
+
+    // The books of the author are selected by the write itself, so all the stripes are held for it
+    @Override
+    public int deleteAllByAuthorId(long authorId) {
+        authorRepository.findById(authorId)
+                .orElseThrow(() -> new EntityNotFoundException("Author with id %d not found".formatted(authorId)));
+        return bookLocks.callLockedAll(() -> bookRepository.deleteAllByAuthorId(authorId)).size();
+    }
+
+    // The books of the genre are selected by the write itself, so all the stripes are held for it
+    @Override
+    public int replaceGenre(long fromGenreId, long toGenreId) {
+        if (fromGenreId == toGenreId) {
+            throw new IllegalArgumentException("Genre can not be replaced with itself");
+        }
+        var genresIds = Set.of(fromGenreId, toGenreId);
+        if (genreRepository.findAllByIds(genresIds).size() != genresIds.size()) {
+            throw new EntityNotFoundException("One or all genres with ids %s not found".formatted(genresIds));
+        }
+        return bookLocks.callLockedAll(() -> bookRepository.replaceGenre(fromGenreId, toGenreId)).size();
     }
 
     private Book save(long id, String title, long authorId, Set<Long> genresIds) {
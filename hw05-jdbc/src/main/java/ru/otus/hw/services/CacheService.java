@@ -0,0 +1,11 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.cache.CacheStats;
+
+import java.util.List;
+
+public interface CacheService {
+    List<CacheStats> stats();
+
+    void evictAll();
+}
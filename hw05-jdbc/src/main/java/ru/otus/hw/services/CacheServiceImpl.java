@@ -0,0 +1,28 @@
+package ru.otus.hw.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.otus.hw.cache.CacheStats;
+import ru.otus.hw.cache.ManagedCache;
+
+import java.util.Comparator;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Service
+public class CacheServiceImpl implements CacheService {
+    private final List<ManagedCache> caches;
+
+    @Override
+    public List<CacheStats> stats() {
+        return caches.stream()
+                .map(ManagedCache::stats)
+                .sorted(Comparator.comparing(CacheStats::name))
+                .toList();
+    }
+
+    @Override
+    public void evictAll() {
+        caches.forEach(ManagedCache::evictAll);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.index.CatalogSnapshot;
+
+import java.util.Optional;
+
+public interface CatalogSnapshotService {
+    // Empty while the snapshot misses some of the committed writes
+    Optional<CatalogSnapshot> findCurrent();
+}
@@ -0,0 +1,294 @@
+package ru.otus.hw.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.index.CatalogSnapshot;
+import ru.otus.hw.index.CatalogSnapshotFile;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.repositories.BookChangeLogRepository;
+import ru.otus.hw.repositories.BookRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Writes only bump the version and queue their books on the single background thread, which applies them to a copy
+// of the current snapshot without reading the database; a refresh requested while another one is running is queued
+// after it, so the latest writes are never lost. The whole catalog is read only when there is no snapshot yet.
+// A persistent snapshot is saved to a file on shutdown and restored on start, then only the books changed since
+// are read from the database. The snapshot is tied to the random epoch of the database, so only a file database
+// keeps it valid across restarts
+@Slf4j
+@Service
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectProvider<BookChangeLogRepository> changeLogRepository;
+
+    private final boolean enabled;
+
+    private final Path snapshotFile;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    private final AtomicLong writesVersion = new AtomicLong();
+
+    // Events of the writes not applied to the snapshot yet, in the order of their commits
+    private final Queue<Object> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "catalog-snapshot-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshotServiceImpl(BookRepository bookRepository, TransactionTemplate transactionTemplate,
+                                      ObjectProvider<BookChangeLogRepository> changeLogRepository,
+                                      @Value("${app.catalog-snapshot.enabled:true}") boolean enabled,
+                                      @Value("${app.catalog-snapshot.file:catalog.snapshot}") String snapshotFile) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLogRepository = changeLogRepository;
+        this.enabled = enabled;
+        this.snapshotFile = Path.of(snapshotFile);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void buildSnapshot() {
+        if (enabled && !restore()) {
+            scheduleRefresh();
+        }
+    }
+
+    // The event is queued before the version is bumped, so a refresh that sees the new version applies it as well
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksSaved(BooksSavedEvent event) {
+        onWrite(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        onWrite(event);
+    }
+
+    // A running refresh still reads the database, so it is waited for before the data source is closed
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+        try {
+            if (!rebuildExecutor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Catalog snapshot refresh has not finished in {}", SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        persist();
+    }
+
+    // A stale snapshot is saved as well, its change id tells where the catch up has to start from.
+    // The changes it already has are pruned from the log afterwards
+    void persist() {
+        var changeLog = changeLogRepository.getIfAvailable();
+        var current = snapshot.get();
+        if (changeLog == null || current == null) {
+            return;
+        }
+        var startedAt = System.nanoTime();
+        try {
+            CatalogSnapshotFile.write(snapshotFile, changeLog.findState().epoch(), current);
+        } catch (IOException e) {
+            log.warn("Unable to save the catalog snapshot to {}", snapshotFile, e);
+            return;
+        }
+        changeLog.prune(current.changeId());
+        log.info("Catalog snapshot of {} books saved to {} in {} ms", current.size(), snapshotFile,
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+
+    // The saved snapshot is used only if it comes from the same database and the changes made after it are
+    // still in the log
+    boolean restore() {
+        var changeLog = changeLogRepository.getIfAvailable();
+        if (changeLog == null) {
+            return false;
+        }
+        var startedAt = System.nanoTime();
+        var version = writesVersion.get();
+        try {
+            var persisted = CatalogSnapshotFile.read(snapshotFile, version);
+            if (persisted.isEmpty()) {
+                return false;
+            }
+            var restored = transactionTemplate.execute(status ->
+                    catchUp(persisted.get(), changeLog, version));
+            if (restored == null) {
+                return false;
+            }
+            snapshot.set(restored);
+            pruneChangesOf(restored);
+            log.info("Catalog snapshot of {} books restored from {} in {} ms", restored.size(), snapshotFile,
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to restore the catalog snapshot from {}", snapshotFile, e);
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<CatalogSnapshot> findCurrent() {
+        var current = snapshot.get();
+        return current != null && current.version() == writesVersion.get() ? Optional.of(current) : Optional.empty();
+    }
+
+    // Runs a refresh after the queued ones and waits for it, so the snapshot has all the writes committed so far
+    void awaitRefresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuildExecutor.submit(this::refresh).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the catalog snapshot", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to refresh the catalog snapshot", e.getCause());
+        }
+    }
+
+    private void onWrite(Object event) {
+        if (enabled) {
+            pendingEvents.add(event);
+        }
+        writesVersion.incrementAndGet();
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (enabled && refreshQueued.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.error("Unable to refresh the catalog snapshot", e);
+                }
+            });
+        }
+    }
+
+    // The version is taken before the pending events are drained, so the events queued meanwhile are applied
+    // either now or on the next refresh, which then only bumps the version
+    private CatalogSnapshot refresh() {
+        refreshQueued.set(false);
+        var version = writesVersion.get();
+        var current = snapshot.get();
+        if (current != null && current.version() == version) {
+            return current;
+        }
+        var startedAt = System.nanoTime();
+        var refreshed = current == null ? rebuild(version) : applyPendingEvents(current, version);
+        snapshot.set(refreshed);
+        log.debug("Catalog snapshot of {} books refreshed in {} ms", refreshed.size(),
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        return refreshed;
+    }
+
+    // The events queued before the reading are in the database already, the ones queued during it are applied
+    // on the next refresh once more, which is harmless
+    private CatalogSnapshot rebuild(long version) {
+        pendingEvents.clear();
+        var rebuilt = build(version);
+        pruneChangesOf(rebuilt);
+        return rebuilt;
+    }
+
+    // A snapshot read from the database needs no earlier changes, so they are pruned right away and the log does
+    // not grow when the process stops without persisting the snapshot. Older snapshot files are rejected then
+    private void pruneChangesOf(CatalogSnapshot read) {
+        var changeLog = changeLogRepository.getIfAvailable();
+        if (changeLog != null) {
+            transactionTemplate.executeWithoutResult(status -> changeLog.prune(read.changeId()));
+        }
+    }
+
+    // Only the written books are replaced, the latest event of a book wins. The change id is kept, so a persisted
+    // snapshot catches up from the last full build
+    private CatalogSnapshot applyPendingEvents(CatalogSnapshot current, long version) {
+        var savedBooks = new LinkedHashMap<Long, Book>();
+        var removedIds = new HashSet<Long>();
+        for (var event = pendingEvents.poll(); event != null; event = pendingEvents.poll()) {
+            if (event instanceof BooksSavedEvent saved) {
+                saved.books().forEach(book -> {
+                    savedBooks.put(book.getId(), book);
+                    removedIds.remove(book.getId());
+                });
+            } else if (event instanceof BooksDeletedEvent deleted) {
+                deleted.booksIds().forEach(id -> {
+                    savedBooks.remove(id);
+                    removedIds.add(id);
+                });
+            }
+        }
+        return current.withChanges(version, current.changeId(), savedBooks.values(), removedIds);
+    }
+
+    // The change id is taken before reading as well, the changes committed meanwhile are applied once more
+    // on the catch up, which is harmless
+    private CatalogSnapshot build(long version) {
+        return transactionTemplate.execute(status -> {
+            var changeLog = changeLogRepository.getIfAvailable();
+            var changeId = changeLog == null ? 0 : changeLog.findState().lastChangeId();
+            var builder = CatalogSnapshot.builder(version, changeId);
+            try (var books = bookRepository.streamAll()) {
+                books.forEach(builder::add);
+            }
+            return builder.build();
+        });
+    }
+
+    private CatalogSnapshot catchUp(CatalogSnapshotFile.PersistedSnapshot persisted,
+                                    BookChangeLogRepository changeLog, long version) {
+        var state = changeLog.findState();
+        var persistedChangeId = persisted.snapshot().changeId();
+        if (!state.epoch().equals(persisted.epoch()) || persistedChangeId < state.prunedChangeId()
+                || persistedChangeId > state.lastChangeId()) {
+            log.info("Catalog snapshot {} does not match the database: {}", snapshotFile, state);
+            return null;
+        }
+        var changedIds = changeLog.findChangedBooksIds(persistedChangeId);
+        var savedBooks = changedIds.isEmpty() ? List.<Book>of() : bookRepository.findAllByIds(changedIds);
+        var removedIds = new HashSet<>(changedIds);
+        savedBooks.forEach(book -> removedIds.remove(book.getId()));
+        log.debug("{} saved and {} removed books caught up", savedBooks.size(), removedIds.size());
+        return persisted.snapshot().withChanges(version, state.lastChangeId(), savedBooks, removedIds);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.models.Genre;
+
+public record GenresPair(Genre first, Genre second) {
+}
@@ -0,0 +1,18 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Genre;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Co-occurrence counts are extrapolated from a sample of the books when the time budget did not allow to read
+// all of them; the coverage is the share of the books having genres that was actually read
+public record LibraryStats(long booksCount, Map<Author, Long> booksPerAuthor, Map<Genre, Long> booksPerGenre,
+                           Map<Author, Long> topAuthors, Map<GenresPair, Long> genresCoOccurrence,
+                           double coOccurrenceCoverage, Duration elapsed) {
+
+    public boolean isEstimated() {
+        return coOccurrenceCoverage < 1;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.otus.hw.services;
+
+import java.time.Duration;
+
+public interface LibraryStatsService {
+    LibraryStats collect(int topCount, Duration timeBudget);
+}
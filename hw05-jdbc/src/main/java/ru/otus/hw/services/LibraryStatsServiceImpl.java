@@ -0,0 +1,148 @@
+package ru.otus.hw.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.BookGenreRelation;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.BookStatsRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+@Service
+public class LibraryStatsServiceImpl implements LibraryStatsService {
+
+    // Co-occurrence is always counted over at least this many books, however small the budget is
+    private static final int MIN_SAMPLED_BOOKS = 1000;
+
+    private static final int SAMPLE_BUCKETS_COUNT = 1024;
+
+    private final BookStatsRepository statsRepository;
+
+    // Counts per author and per genre are exact grouping queries and are not limited by the time budget.
+    // Only co-occurrence is: the books are spread over buckets by a hash of their ids, and ranges of buckets
+    // twice as large each time are counted until the budget is spent. A range interrupted by the deadline is
+    // dropped, so the books counted are those of whole buckets, which are a uniform sample
+    @Transactional(readOnly = true)
+    @Override
+    public LibraryStats collect(int topCount, Duration timeBudget) {
+        if (topCount <= 0) {
+            throw new IllegalArgumentException("Top count must be positive");
+        }
+        if (timeBudget.isNegative() || timeBudget.isZero()) {
+            throw new IllegalArgumentException("Time budget must be positive");
+        }
+        var startedAt = System.nanoTime();
+        var deadline = startedAt + timeBudget.toNanos();
+
+        var booksCount = statsRepository.countBooks();
+        var booksPerAuthor = statsRepository.countBooksByAuthor();
+        var booksPerGenre = statsRepository.countBooksByGenre();
+        var topAuthors = booksPerAuthor.entrySet().stream()
+                .sorted(Map.Entry.<Author, Long>comparingByValue().reversed())
+                .limit(topCount)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+
+        var pairsCounter = new GenresPairsCounter();
+        var countedBuckets = 0;
+        var interrupted = false;
+        while (countedBuckets < SAMPLE_BUCKETS_COUNT && !interrupted) {
+            var toBucket = Math.min(Math.max(countedBuckets * 2, 1), SAMPLE_BUCKETS_COUNT);
+            var bucketsCounter = new GenresPairsCounter();
+            var bounded = pairsCounter.booksCount() >= MIN_SAMPLED_BOOKS;
+            try (var relations = statsRepository.streamGenreRelationsOfBuckets(SAMPLE_BUCKETS_COUNT,
+                    countedBuckets, toBucket)) {
+                var iterator = relations.iterator();
+                while (!(interrupted = bounded && System.nanoTime() > deadline) && iterator.hasNext()) {
+                    bucketsCounter.accept(iterator.next());
+                }
+            }
+            if (!interrupted) {
+                bucketsCounter.finish();
+                pairsCounter.addAll(bucketsCounter);
+                countedBuckets = toBucket;
+            }
+        }
+
+        var coverage = 1.0;
+        if (interrupted) {
+            var booksHavingGenres = statsRepository.countBooksHavingGenres();
+            coverage = booksHavingGenres == 0 ? 1.0 : (double) pairsCounter.booksCount() / booksHavingGenres;
+        }
+        var genresById = booksPerGenre.keySet().stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        var coOccurrence = pairsCounter.toGenresPairs(genresById, coverage);
+        return new LibraryStats(booksCount, booksPerAuthor, booksPerGenre, topAuthors, coOccurrence, coverage,
+                Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private static class GenresPairsCounter {
+
+        private final Map<Long, Map<Long, long[]>> countsByPair = new HashMap<>();
+
+        private final List<Long> bookGenresIds = new ArrayList<>();
+
+        private long currentBookId = -1;
+
+        private long booksCount;
+
+        // Relations of a book must be adjacent
+        void accept(BookGenreRelation relation) {
+            if (relation.bookId() != currentBookId) {
+                finish();
+                currentBookId = relation.bookId();
+            }
+            bookGenresIds.add(relation.genreId());
+        }
+
+        void finish() {
+            if (bookGenresIds.isEmpty()) {
+                return;
+            }
+            Collections.sort(bookGenresIds);
+            for (int i = 0; i < bookGenresIds.size(); i++) {
+                var firstPairs = countsByPair.computeIfAbsent(bookGenresIds.get(i), key -> new HashMap<>());
+                for (int j = i + 1; j < bookGenresIds.size(); j++) {
+                    firstPairs.computeIfAbsent(bookGenresIds.get(j), key -> new long[1])[0]++;
+                }
+            }
+            bookGenresIds.clear();
+            booksCount++;
+        }
+
+        void addAll(GenresPairsCounter other) {
+            other.countsByPair.forEach((firstId, secondCounts) -> {
+                var firstPairs = countsByPair.computeIfAbsent(firstId, key -> new HashMap<>());
+                secondCounts.forEach((secondId, count) ->
+                        firstPairs.computeIfAbsent(secondId, key -> new long[1])[0] += count[0]);
+            });
+            booksCount += other.booksCount;
+        }
+
+        long booksCount() {
+            return booksCount;
+        }
+
+        // Pairs ordered by the number of books descending; the counts are scaled up by the coverage
+        Map<GenresPair, Long> toGenresPairs(Map<Long, Genre> genresById, double coverage) {
+            var pairs = new ArrayList<Map.Entry<GenresPair, Long>>();
+            countsByPair.forEach((firstId, secondCounts) -> secondCounts.forEach((secondId, count) ->
+                    pairs.add(Map.entry(new GenresPair(genresById.get(firstId), genresById.get(secondId)),
+                            Math.round(count[0] / coverage)))));
+            pairs.sort(Map.Entry.<GenresPair, Long>comparingByValue().reversed());
+            var result = new LinkedHashMap<GenresPair, Long>();
+            pairs.forEach(pair -> result.put(pair.getKey(), pair.getValue()));
+            return result;
+        }
+    }
+}
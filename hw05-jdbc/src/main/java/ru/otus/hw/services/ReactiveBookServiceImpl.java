@@ -0,0 +1,70 @@
+package ru.otus.hw.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.repositories.ReactiveAuthorRepository;
+import ru.otus.hw.repositories.ReactiveBookRepository;
+import ru.otus.hw.repositories.ReactiveGenreRepository;
+
+import java.util.Set;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+@Profile("r2dbc")
+@RequiredArgsConstructor
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+    private final ReactiveAuthorRepository authorRepository;
+
+    private final ReactiveGenreRepository genreRepository;
+
+    private final ReactiveBookRepository bookRepository;
+
+    @Override
+    public Mono<Book> findById(long id) {
+        return bookRepository.findById(id);
+    }
+
+    @Override
+    public Flux<Book> findAll() {
+        return bookRepository.findAll();
+    }
+
+    @Override
+    public Mono<Book> insert(String title, long authorId, Set<Long> genresIds) {
+        return save(0, title, authorId, genresIds);
+    }
+
+    @Override
+    public Mono<Book> update(long id, String title, long authorId, Set<Long> genresIds) {
+        return save(id, title, authorId, genresIds);
+    }
+
+    @Override
+    public Mono<Void> deleteById(long id) {
+        return bookRepository.deleteById(id);
+    }
+
+    private Mono<Book> save(long id, String title, long authorId, Set<Long> genresIds) {
+        if (isEmpty(genresIds)) {
+            return Mono.error(new IllegalArgumentException("Genres ids must not be null"));
+        }
+
+        var author = authorRepository.findById(authorId)
+                .switchIfEmpty(Mono.error(
+                        () -> new EntityNotFoundException("Author with id %d not found".formatted(authorId))));
+        var genres = genreRepository.findAllByIds(genresIds)
+                .collectList()
+                .filter(found -> found.size() == genresIds.size())
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(
+                        "One or all genres with ids %s not found".formatted(genresIds))));
+        return Mono.zip(author, genres)
+                .flatMap(authorAndGenres -> bookRepository.save(
+                        new Book(id, title, authorAndGenres.getT1(), authorAndGenres.getT2())));
+    }
+}
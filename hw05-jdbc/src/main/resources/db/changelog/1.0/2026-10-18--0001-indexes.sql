@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+
+--changeset tegslava:2026-10-18--0001-books-index
+create index idx_books_author_id on books (author_id);
+
+--changeset tegslava:2026-10-18--0001-books_genres-index
+create index idx_books_genres_genre_id on books_genres (genre_id);
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+
+--changeset tegslava:2026-10-18--0002-book_catalog
+create table book_catalog
+(
+    book_id          bigint references books (id) on delete cascade,
+    title            varchar(255),
+    author_id        bigint,
+    author_full_name varchar(255),
+    genres           varchar(4000),
+    primary key (book_id)
+);
@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+
+--changeset tegslava:2026-10-18--0003-book_changes
+create table book_changes
+(
+    id      bigserial,
+    book_id bigint not null,
+    primary key (id)
+);
+
+--changeset tegslava:2026-10-18--0003-catalog_state
+create table catalog_state
+(
+    epoch            varchar(36) not null,
+    pruned_change_id bigint      not null
+);
+
+insert into catalog_state(epoch, pruned_change_id)
+values (cast(random_uuid() as varchar(36)), 0);
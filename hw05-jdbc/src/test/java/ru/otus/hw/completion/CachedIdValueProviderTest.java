@@ -0,0 +1,89 @@
+package ru.otus.hw.completion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Автодополнение id по кэшированному индексу")
+class CachedIdValueProviderTest {
+
+    private static final int NAMES_COUNT = 100_000;
+
+    private final AtomicInteger loadsCount = new AtomicInteger();
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @DisplayName("должен предлагать id, начинающиеся с набранных цифр, с именами в описании")
+    @Test
+    void shouldProposeIdsStartingWithTypedDigits() {
+        var provider = provider(Duration.ofMinutes(1), false);
+
+        var proposals = provider.complete(completionContext("1"));
+
+        assertThat(proposals).extracting(CompletionProposal::value)
+                .hasSize(50)
+                .allMatch(value -> value.startsWith("1"))
+                .startsWith("1", "10", "100", "1000");
+        assertThat(proposals.get(0).description()).isEqualTo("Name_1");
+        assertThat(provider.complete(completionContext("99999"))).extracting(CompletionProposal::value)
+                .containsExactly("99999");
+        assertThat(provider.complete(completionContext("x"))).isEmpty();
+    }
+
+    @DisplayName("должен дополнять последний id в списке через запятую")
+    @Test
+    void shouldCompleteLastIdOfList() {
+        var provider = provider(Duration.ofMinutes(1), true);
+
+        assertThat(provider.complete(completionContext("2,5,1234"))).extracting(CompletionProposal::value)
+                .containsExactly("2,5,1234", "2,5,12340", "2,5,12341", "2,5,12342", "2,5,12343", "2,5,12344",
+                        "2,5,12345", "2,5,12346", "2,5,12347", "2,5,12348", "2,5,12349");
+    }
+
+    @DisplayName("должен загружать имена один раз за время жизни индекса, а не при каждом дополнении")
+    @Test
+    void shouldReloadNamesOncePerTimeToLive() {
+        var provider = provider(Duration.ofMinutes(1), false);
+        for (int i = 0; i < 100; i++) {
+            provider.complete(completionContext(Integer.toString(i)));
+        }
+        assertThat(loadsCount).hasValue(1);
+
+        nanoTime.addAndGet(Duration.ofSeconds(59).toNanos());
+        provider.complete(completionContext("1"));
+        assertThat(loadsCount).hasValue(1);
+
+        nanoTime.addAndGet(Duration.ofSeconds(2).toNanos());
+        for (int i = 0; i < 100; i++) {
+            provider.complete(completionContext(Integer.toString(i)));
+        }
+        assertThat(loadsCount).hasValue(2);
+    }
+
+    private CachedIdValueProvider provider(Duration timeToLive, boolean multiValued) {
+        return new CachedIdValueProvider(timeToLive, multiValued, nanoTime::get) {
+            @Override
+            protected Map<Long, String> loadNamesById() {
+                loadsCount.incrementAndGet();
+                return LongStream.rangeClosed(1, NAMES_COUNT).boxed()
+                        .collect(Collectors.toMap(Function.identity(), id -> "Name_" + id));
+            }
+        };
+    }
+
+    private static CompletionContext completionContext(String word) {
+        return new CompletionContext(List.of("bins", "title", word), 2, word.length(), null, null);
+    }
+}
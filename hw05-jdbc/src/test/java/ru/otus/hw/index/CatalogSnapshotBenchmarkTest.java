@@ -0,0 +1,100 @@
+package ru.otus.hw.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры памяти и скорости колоночного снимка каталога (-Dbenchmark=true)")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogSnapshotBenchmarkTest {
+
+    private static final int BOOKS_COUNT = 500_000;
+
+    private static final int AUTHORS_COUNT = 1_000;
+
+    private static final int GENRES_COUNT = 20;
+
+    private static final int TITLES_COUNT = 100_000;
+
+    private static final int MAX_GENRES_PER_BOOK = 4;
+
+    private static final int ITERATIONS = 10;
+
+    @DisplayName("снимок против списка книг")
+    @Test
+    void compareSnapshotWithBooksList() {
+        var initialHeap = usedHeap();
+        var books = generateBooks();
+        var booksListHeap = usedHeap() - initialHeap;
+
+        var startedAt = System.nanoTime();
+        var snapshot = buildSnapshot(books);
+        var buildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        assertThat(snapshot.findAll()).isEqualTo(books);
+
+        books = null;
+        var snapshotHeap = usedHeap() - initialHeap;
+
+        System.out.printf("%d books: List<Book> %d MB, snapshot %d MB, built in %d ms%n", BOOKS_COUNT,
+                booksListHeap / (1024 * 1024), snapshotHeap / (1024 * 1024), buildMillis);
+        System.out.printf("findAll %.1f ms, findById %.3f us%n", measureMicros(snapshot::findAll) / 1000,
+                measureMicros(() -> snapshot.findById(BOOKS_COUNT / 2)));
+    }
+
+    // The builder buffers become garbage right after the build, so they are not counted as the snapshot heap
+    private static CatalogSnapshot buildSnapshot(List<Book> books) {
+        var builder = CatalogSnapshot.builder(0L, 0L);
+        books.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static List<Book> generateBooks() {
+        var random = new Random(42);
+        var authors = IntStream.rangeClosed(1, AUTHORS_COUNT)
+                .mapToObj(id -> new Author(id, "Author_" + id))
+                .toList();
+        var genres = IntStream.rangeClosed(1, GENRES_COUNT)
+                .mapToObj(id -> new Genre(id, "Genre_" + id))
+                .toList();
+        var books = new ArrayList<Book>(BOOKS_COUNT);
+        for (int id = 1; id <= BOOKS_COUNT; id++) {
+            var bookGenres = random.ints(0, GENRES_COUNT).distinct().limit(1 + random.nextInt(MAX_GENRES_PER_BOOK))
+                    .sorted()
+                    .mapToObj(genres::get)
+                    .toList();
+            books.add(new Book(id, "Title_" + random.nextInt(TITLES_COUNT),
+                    authors.get(random.nextInt(AUTHORS_COUNT)), new ArrayList<>(bookGenres)));
+        }
+        return books;
+    }
+
+    // The books list is dropped before the last measurement, so what is left over the initial heap is retained
+    // by the snapshot alone, titles and authors shared with the list included
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double measureMicros(Supplier<?> action) {
+        action.get();
+        var startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - startedAt) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,142 @@
+package ru.otus.hw.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+@DisplayName("Колоночный снимок каталога книг")
+class CatalogSnapshotTest {
+
+    private static final List<Author> AUTHORS = List.of(new Author(1L, "Author_1"), new Author(2L, "Author_2"));
+
+    private static final List<Genre> GENRES = IntStream.rangeClosed(1, 70)
+            .mapToObj(id -> new Genre(id, "Genre_" + id))
+            .toList();
+
+    private List<Book> books;
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        books = List.of(
+                new Book(1L, "BookTitle_1", AUTHORS.get(0), List.of(genre(1), genre(2))),
+                new Book(2L, "BookTitle_2", AUTHORS.get(1), List.of(genre(2), genre(3))),
+                new Book(5L, "BookTitle_1", AUTHORS.get(0), List.of(genre(3), genre(70))),
+                new Book(7L, "BookTitle_7", AUTHORS.get(1), List.of()));
+        var builder = CatalogSnapshot.builder(42L, 7L);
+        books.forEach(builder::add);
+        snapshot = builder.build();
+    }
+
+    @DisplayName("должен отдавать все книги в порядке id")
+    @Test
+    void shouldReturnAllBooks() {
+        assertThat(snapshot.version()).isEqualTo(42L);
+        assertThat(snapshot.size()).isEqualTo(4);
+        assertThat(snapshot.findAll()).containsExactlyElementsOf(books);
+    }
+
+    @DisplayName("должен находить книгу по id")
+    @Test
+    void shouldFindBookById() {
+        assertThat(snapshot.findById(5L)).contains(books.get(2));
+        assertThat(snapshot.findById(3L)).isEmpty();
+    }
+
+    @DisplayName("должен разделять одинаковые названия и авторов между книгами")
+    @Test
+    void shouldShareEqualTitlesAndAuthors() {
+        var first = snapshot.findById(1L).orElseThrow();
+        var third = snapshot.findById(5L).orElseThrow();
+        assertThat(third.getTitle()).isSameAs(first.getTitle());
+        assertThat(third.getAuthor()).isSameAs(first.getAuthor());
+    }
+
+    @DisplayName("должен применять изменения книг с известными жанрами к копии снимка")
+    @Test
+    void shouldApplyChangesWithKnownGenresToCopy() {
+        var updatedBook = new Book(1L, "BookTitle_1'", new Author(3L, "Author_3"), List.of(genre(3), genre(70)));
+        var newBook = new Book(6L, "BookTitle_6", AUTHORS.get(1), List.of(genre(1)));
+
+        var changed = snapshot.withChanges(43L, 8L, List.of(newBook, updatedBook), List.of(2L));
+
+        assertThat(changed.findAll()).containsExactly(updatedBook, books.get(2), newBook, books.get(3));
+        assertThat(snapshot.findAll()).containsExactlyElementsOf(books);
+    }
+
+    @DisplayName("должен применять изменения книг с новыми жанрами к копии снимка")
+    @Test
+    void shouldApplyChangesWithNewGenresToCopy() {
+        var updatedBook = new Book(2L, "BookTitle_2'", AUTHORS.get(0), List.of(genre(70)));
+        var newBooks = List.of(new Book(9L, "BookTitle_9", AUTHORS.get(1), List.of(genre(1))),
+                new Book(3L, null, new Author(3L, "Author_3"), List.of(genre(4))));
+
+        var changed = snapshot.withChanges(43L, 8L, List.of(newBooks.get(0), updatedBook, newBooks.get(1)),
+                List.of(5L, 100L));
+
+        assertThat(changed.version()).isEqualTo(43L);
+        assertThat(changed.changeId()).isEqualTo(8L);
+        assertThat(changed.findAll()).containsExactly(books.get(0), updatedBook, newBooks.get(1), books.get(3),
+                newBooks.get(0));
+        assertThat(snapshot.findAll()).containsExactlyElementsOf(books);
+    }
+
+    @DisplayName("должен восстанавливаться из записанного представления")
+    @Test
+    void shouldReadWrittenSnapshot() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            snapshot.writeTo(out);
+        }
+
+        var read = CatalogSnapshot.readFrom(ByteBuffer.wrap(bytes.toByteArray()), 1L);
+
+        assertThat(read.version()).isEqualTo(1L);
+        assertThat(read.changeId()).isEqualTo(7L);
+        assertThat(read.findAll()).containsExactlyElementsOf(books);
+    }
+
+    @DisplayName("должен сохранять снимок в файл и читать его отображением в память")
+    @Test
+    void shouldSaveSnapshotToFile(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(file, "epoch", snapshot);
+
+        var persisted = CatalogSnapshotFile.read(file, 1L);
+
+        assertThat(persisted).get().extracting(CatalogSnapshotFile.PersistedSnapshot::epoch).isEqualTo("epoch");
+        assertThat(persisted.get().snapshot().findAll()).containsExactlyElementsOf(books);
+        assertThat(CatalogSnapshotFile.read(directory.resolve("missing.snapshot"), 1L)).isEmpty();
+
+        Files.writeString(file, "not a snapshot");
+        assertThat(CatalogSnapshotFile.read(file, 1L)).isEmpty();
+    }
+
+    @DisplayName("должен требовать добавления книг по возрастанию id")
+    @Test
+    void shouldRejectBooksOutOfOrder() {
+        var builder = CatalogSnapshot.builder(0L, 0L).add(books.get(1));
+        assertThatIllegalArgumentException().isThrownBy(() -> builder.add(books.get(0)));
+    }
+
+    private static Genre genre(int id) {
+        return GENRES.get(id - 1);
+    }
+}
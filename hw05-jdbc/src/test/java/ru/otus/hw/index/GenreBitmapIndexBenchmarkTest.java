@@ -0,0 +1,166 @@
+package ru.otus.hw.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры производительности битового индекса жанров (-Dbenchmark=true)")
+@JdbcTest
+@Import(JdbcBookRepository.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class GenreBitmapIndexBenchmarkTest {
+
+    private static final int BOOKS_COUNT = 1_000_000;
+
+    private static final int GENRES_COUNT = 20;
+
+    private static final int MAX_GENRES_PER_BOOK = 4;
+
+    private static final int INSERT_CHUNK_SIZE = 50_000;
+
+    private static final int INDEX_ITERATIONS = 100;
+
+    private static final int SQL_ITERATIONS = 1;
+
+    private static final List<GenreFilter> FILTERS = List.of(
+            new GenreFilter("all of 1, 2", Set.of(1L, 2L), Set.of(), Set.of()),
+            new GenreFilter("any of 3, 4, 5", Set.of(), Set.of(3L, 4L, 5L), Set.of()),
+            new GenreFilter("all of 1, any of 2, 3, none of 4", Set.of(1L), Set.of(2L, 3L), Set.of(4L)),
+            new GenreFilter("none of 5", Set.of(), Set.of(), Set.of(5L)));
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @BeforeEach
+    void setUp() {
+        var genres = IntStream.rangeClosed(7, GENRES_COUNT)
+                .mapToObj(i -> new MapSqlParameterSource("name", "Genre_" + i))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into genres(name) values (:name)", genres);
+
+        var random = new Random(42);
+        for (int from = 0; from < BOOKS_COUNT; from += INSERT_CHUNK_SIZE) {
+            var books = IntStream.range(from, from + INSERT_CHUNK_SIZE)
+                    .mapToObj(i -> new MapSqlParameterSource(Map.of("title", "Bench_" + i, "author_id", 1)))
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbc.batchUpdate("insert into books(title, author_id) values (:title, :author_id)", books);
+        }
+        var booksIds = jdbc.getJdbcOperations().queryForList("select id from books where id > 3", Long.class);
+        for (int from = 0; from < booksIds.size(); from += INSERT_CHUNK_SIZE) {
+            var relations = new ArrayList<MapSqlParameterSource>();
+            for (var bookId : booksIds.subList(from, Math.min(from + INSERT_CHUNK_SIZE, booksIds.size()))) {
+                random.ints(1, GENRES_COUNT + 1).distinct().limit(1 + random.nextInt(MAX_GENRES_PER_BOOK))
+                        .forEach(genreId -> relations.add(new MapSqlParameterSource(
+                                Map.of("book_id", bookId, "genre_id", genreId))));
+            }
+            jdbc.batchUpdate("insert into books_genres(book_id, genre_id) values (:book_id, :genre_id)",
+                    relations.toArray(MapSqlParameterSource[]::new));
+        }
+    }
+
+    @DisplayName("фильтр и фасеты по битовому индексу против SQL")
+    @Test
+    void compareIndexWithSql() {
+        var startedAt = System.nanoTime();
+        var index = new GenreBitmapIndex();
+        try (var relations = bookRepository.streamAllGenreRelations()) {
+            relations.forEach(relation -> index.add(relation.bookId(), relation.genreId()));
+        }
+        System.out.printf("genres of %d books indexed in %d ms%n", index.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+
+        for (var filter : FILTERS) {
+            var foundByIndex = index.filter(filter.allOf(), filter.anyOf(), filter.noneOf());
+            var foundBySql = filterWithSql(filter);
+            assertThat(foundByIndex.stream().asLongStream().boxed().toList()).isEqualTo(foundBySql);
+            assertThat(index.facets(foundByIndex)).isEqualTo(facetsWithSql(filter));
+
+            var indexMicros = measureMicros(() -> index.facets(index.filter(filter.allOf(), filter.anyOf(),
+                    filter.noneOf())), INDEX_ITERATIONS);
+            var sqlMicros = measureMicros(() -> List.of(filterWithSql(filter), facetsWithSql(filter)),
+                    SQL_ITERATIONS);
+            System.out.printf("%s, %d found: bitmaps %.1f us, sql %.1f ms%n", filter.name(),
+                    foundByIndex.getCardinality(), indexMicros, sqlMicros / 1000);
+        }
+    }
+
+    private List<Long> filterWithSql(GenreFilter filter) {
+        return jdbc.queryForList("select b.id from books b where " + sqlConditionOf(filter) + " order by b.id",
+                sqlParamsOf(filter), Long.class);
+    }
+
+    private Map<Long, Integer> facetsWithSql(GenreFilter filter) {
+        var facets = new TreeMap<Long, Integer>();
+        jdbc.query("""
+                        select bg.genre_id, count(*) as books_count
+                          from books_genres bg
+                         where bg.book_id in (select b.id from books b where %s)
+                         group by bg.genre_id
+                        """.formatted(sqlConditionOf(filter)), sqlParamsOf(filter),
+                rs -> {
+                    facets.put(rs.getLong("genre_id"), rs.getInt("books_count"));
+                });
+        return facets;
+    }
+
+    private static String sqlConditionOf(GenreFilter filter) {
+        var conditions = new ArrayList<String>();
+        conditions.add("exists (select 1 from books_genres bg where bg.book_id = b.id)");
+        filter.allOf().stream().sorted().forEach(genreId -> conditions.add(
+                "exists (select 1 from books_genres bg where bg.book_id = b.id and bg.genre_id = %d)"
+                        .formatted(genreId)));
+        if (!filter.anyOf().isEmpty()) {
+            conditions.add("exists (select 1 from books_genres bg where bg.book_id = b.id "
+                    + "and bg.genre_id in (:any_of))");
+        }
+        if (!filter.noneOf().isEmpty()) {
+            conditions.add("not exists (select 1 from books_genres bg where bg.book_id = b.id "
+                    + "and bg.genre_id in (:none_of))");
+        }
+        return String.join(" and ", conditions);
+    }
+
+    private static MapSqlParameterSource sqlParamsOf(GenreFilter filter) {
+        return new MapSqlParameterSource()
+                .addValue("any_of", filter.anyOf())
+                .addValue("none_of", filter.noneOf());
+    }
+
+    private static double measureMicros(Supplier<?> filter, int iterations) {
+        filter.get();
+        var startedAt = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            filter.get();
+        }
+        return (System.nanoTime() - startedAt) / 1_000.0 / iterations;
+    }
+
+    private record GenreFilter(String name, Set<Long> allOf, Set<Long> anyOf, Set<Long> noneOf) {
+    }
+}
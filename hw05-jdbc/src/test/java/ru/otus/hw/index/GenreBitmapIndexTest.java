@@ -0,0 +1,66 @@
+package ru.otus.hw.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("Битовый индекс жанров книг")
+class GenreBitmapIndexTest {
+
+    private GenreBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new GenreBitmapIndex();
+        index.put(1L, List.of(1L, 2L));
+        index.put(2L, List.of(2L, 3L));
+        index.put(3L, List.of(3L));
+        index.put(4L, List.of(1L, 2L, 3L));
+    }
+
+    @DisplayName("должен находить книги, имеющие все заданные жанры")
+    @Test
+    void shouldFilterBooksHavingAllGenres() {
+        assertThat(index.filter(Set.of(1L, 2L), Set.of(), Set.of()).toArray()).containsExactly(1, 4);
+        assertThat(index.filter(Set.of(1L, 100L), Set.of(), Set.of()).isEmpty()).isTrue();
+    }
+
+    @DisplayName("должен находить книги, имеющие любой из заданных жанров")
+    @Test
+    void shouldFilterBooksHavingAnyGenre() {
+        assertThat(index.filter(Set.of(), Set.of(1L, 3L), Set.of()).toArray()).containsExactly(1, 2, 3, 4);
+        assertThat(index.filter(Set.of(2L), Set.of(1L, 100L), Set.of()).toArray()).containsExactly(1, 4);
+    }
+
+    @DisplayName("должен исключать книги, имеющие любой из запрещенных жанров")
+    @Test
+    void shouldFilterBooksHavingNoneOfGenres() {
+        assertThat(index.filter(Set.of(), Set.of(), Set.of(1L)).toArray()).containsExactly(2, 3);
+        assertThat(index.filter(Set.of(3L), Set.of(), Set.of(1L, 2L)).toArray()).containsExactly(3);
+    }
+
+    @DisplayName("должен считать количество найденных книг по жанрам")
+    @Test
+    void shouldCountFoundBooksByGenres() {
+        var books = index.filter(Set.of(), Set.of(), Set.of(1L));
+
+        assertThat(index.facets(books)).containsExactly(entry(2L, 1), entry(3L, 2));
+    }
+
+    @DisplayName("должен учитывать измененные жанры и удаленные книги")
+    @Test
+    void shouldApplyChangedGenresAndRemovedBooks() {
+        index.put(1L, List.of(3L));
+        index.remove(4L);
+
+        assertThat(index.filter(Set.of(1L), Set.of(), Set.of()).isEmpty()).isTrue();
+        assertThat(index.filter(Set.of(3L), Set.of(), Set.of()).toArray()).containsExactly(1, 2, 3);
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
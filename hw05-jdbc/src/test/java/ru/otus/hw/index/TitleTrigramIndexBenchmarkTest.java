@@ -0,0 +1,136 @@
+package ru.otus.hw.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры производительности триграммного индекса названий (-Dbenchmark=true)")
+@JdbcTest
+@Import(JdbcBookRepository.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class TitleTrigramIndexBenchmarkTest {
+
+    private static final int BOOKS_COUNT = 1_000_000;
+
+    private static final int INSERT_CHUNK_SIZE = 50_000;
+
+    private static final int INDEX_ITERATIONS = 1_000;
+
+    private static final int LIKE_ITERATIONS = 5;
+
+    private static final int WORDS_COUNT = 5_000;
+
+    private static final List<String> SYLLABLES = List.of("ka", "lo", "mi", "ren", "sto", "val", "dor", "en",
+            "ix", "ul", "bra", "the", "qua", "mor", "sel", "tin", "ga", "rup", "ve", "nok", "as", "pri", "zen", "hu");
+
+    private static final List<String> WORDS = words();
+
+    private static final List<SearchQuery> QUERIES = List.of(
+            new SearchQuery("rare substring", "424242", false),
+            new SearchQuery("word", WORDS.get(100), false),
+            new SearchQuery("word prefix", WORDS.get(400), true),
+            new SearchQuery("syllables", "renmor", false),
+            new SearchQuery("short substring", "ix", false));
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @BeforeEach
+    void setUp() {
+        var random = new Random(42);
+        for (int from = 0; from < BOOKS_COUNT; from += INSERT_CHUNK_SIZE) {
+            var books = IntStream.range(from, from + INSERT_CHUNK_SIZE)
+                    .mapToObj(i -> new MapSqlParameterSource(Map.of("title", title(random, i), "author_id", 1)))
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbc.batchUpdate("insert into books(title, author_id) values (:title, :author_id)", books);
+        }
+    }
+
+    @DisplayName("поиск по индексу против LIKE '%x%'")
+    @Test
+    void compareIndexWithLike() {
+        var runtime = Runtime.getRuntime();
+        System.gc();
+        var usedMemoryBefore = runtime.totalMemory() - runtime.freeMemory();
+        var startedAt = System.nanoTime();
+        var index = new TitleTrigramIndex();
+        try (var books = bookRepository.streamAll()) {
+            books.forEach(book -> index.put(book.getId(), book.getTitle()));
+        }
+        var buildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        System.gc();
+        var indexMegabytes = (runtime.totalMemory() - runtime.freeMemory() - usedMemoryBefore) / (1024 * 1024);
+        System.out.printf("index of %d titles built in %d ms, ~%d MB of heap%n", index.size(), buildMillis,
+                indexMegabytes);
+
+        for (var query : QUERIES) {
+            var foundByIndex = index.search(query.text(), query.prefixOnly());
+            var foundByLike = searchWithLike(query);
+            assertThat(foundByIndex).containsExactly(foundByLike.stream().mapToLong(Long::longValue).toArray());
+
+            var indexMicros = measureMicros(() -> index.search(query.text(), query.prefixOnly()), INDEX_ITERATIONS);
+            var likeMicros = measureMicros(() -> searchWithLike(query), LIKE_ITERATIONS);
+            System.out.printf("%s '%s', %d found: index %.1f us, like %.1f ms%n", query.name(), query.text(),
+                    foundByIndex.length, indexMicros, likeMicros / 1000);
+        }
+    }
+
+    private static List<String> words() {
+        var random = new Random(7);
+        return Stream.generate(() -> IntStream.range(0, 2 + random.nextInt(3))
+                        .mapToObj(i -> SYLLABLES.get(random.nextInt(SYLLABLES.size())))
+                        .collect(Collectors.joining()))
+                .distinct()
+                .limit(WORDS_COUNT)
+                .toList();
+    }
+
+    private static String title(Random random, int number) {
+        return IntStream.range(0, 3 + random.nextInt(3))
+                .mapToObj(i -> WORDS.get(random.nextInt(WORDS.size())))
+                .collect(Collectors.joining(" ")) + " " + number;
+    }
+
+    private List<Long> searchWithLike(SearchQuery query) {
+        var pattern = (query.prefixOnly() ? "" : "%") + query.text().toLowerCase() + "%";
+        return jdbc.queryForList("select id from books where lower(title) like :pattern order by id",
+                Map.of("pattern", pattern), Long.class);
+    }
+
+    private static double measureMicros(Supplier<?> search, int iterations) {
+        search.get();
+        var startedAt = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - startedAt) / 1_000.0 / iterations;
+    }
+
+    private record SearchQuery(String name, String text, boolean prefixOnly) {
+    }
+}
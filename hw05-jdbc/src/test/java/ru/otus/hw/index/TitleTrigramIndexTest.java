@@ -0,0 +1,81 @@
+package ru.otus.hw.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Триграммный индекс названий книг")
+class TitleTrigramIndexTest {
+
+    private TitleTrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TitleTrigramIndex();
+        index.put(1L, "War and Peace");
+        index.put(2L, "Peace of Mind");
+        index.put(3L, "The Art of War");
+        index.put(4L, "Мастер и Маргарита");
+    }
+
+    @DisplayName("должен находить книги по подстроке названия без учета регистра")
+    @ParameterizedTest
+    @CsvSource({
+            "peace, 1;2",
+            "WAR, 1;3",
+            "art, 3",
+            "ar, 1;3",
+            "e o, 2",
+            "маргарит, 4",
+            "war and peace, 1",
+            "warp, ''"})
+    void shouldFindBooksByTitleSubstring(String query, String expectedIds) {
+        assertThat(index.search(query, false)).containsExactly(ids(expectedIds));
+    }
+
+    @DisplayName("должен находить книги по началу названия")
+    @ParameterizedTest
+    @CsvSource({
+            "war, 1",
+            "pe, 2",
+            "p, 2",
+            "the art of war, 3",
+            "peace and, ''"})
+    void shouldFindBooksByTitlePrefix(String query, String expectedIds) {
+        assertThat(index.search(query, true)).containsExactly(ids(expectedIds));
+    }
+
+    @DisplayName("должен учитывать измененные и удаленные названия")
+    @Test
+    void shouldApplyChangedAndRemovedTitles() {
+        index.put(1L, "Anna Karenina");
+        index.remove(3L);
+
+        assertThat(index.search("war", false)).isEmpty();
+        assertThat(index.search("karenina", false)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @DisplayName("должен сохранять результаты поиска после уплотнения индекса")
+    @Test
+    void shouldFindBooksAfterCompaction() {
+        LongStream.rangeClosed(10, 5_000).forEach(id -> index.put(id, "Volume " + id));
+        LongStream.rangeClosed(10, 4_000).forEach(index::remove);
+        index.put(2L, "Peace of Mind, revised");
+
+        assertThat(index.search("volume 40", false)).containsExactly(LongStream.rangeClosed(4_001, 4_099).toArray());
+        assertThat(index.search("peace", false)).containsExactly(1L, 2L);
+        assertThat(index.size()).isEqualTo(1_004);
+    }
+
+    private static long[] ids(String ids) {
+        return ids.isEmpty() ? new long[0] : Arrays.stream(ids.split(";")).mapToLong(Long::parseLong).toArray();
+    }
+}
@@ -0,0 +1,143 @@
+package ru.otus.hw.locks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Блокировка по полосам")
+class StripedLockTest {
+
+    private static final long FIRST_KEY = 1L;
+
+    // Keys 1 and 2 fall into different stripes of 64
+    private static final long SECOND_KEY = 2L;
+
+    private final StripedLock lock = new StripedLock(64);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("должен выполнять действия по одному ключу строго по очереди")
+    @Test
+    void shouldSerializeActionsOfSameKey() throws Exception {
+        var holderEntered = new CountDownLatch(1);
+        var holderReleased = new CountDownLatch(1);
+        var waiterEntered = new CountDownLatch(1);
+        var holder = holdLocked(FIRST_KEY, holderEntered, holderReleased);
+        assertThat(holderEntered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        var waiter = executor.submit(() -> lock.runLocked(FIRST_KEY, waiterEntered::countDown));
+
+        assertThat(waiterEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        holderReleased.countDown();
+        assertThat(waiterEntered.await(10, TimeUnit.SECONDS)).isTrue();
+        holder.get(10, TimeUnit.SECONDS);
+        waiter.get(10, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("должен выполнять действия по ключам из разных полос параллельно")
+    @Test
+    void shouldNotBlockActionsOfOtherStripes() throws Exception {
+        var holderEntered = new CountDownLatch(1);
+        var holderReleased = new CountDownLatch(1);
+        var holder = holdLocked(FIRST_KEY, holderEntered, holderReleased);
+        assertThat(holderEntered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        var other = executor.submit(() -> lock.callLocked(SECOND_KEY, () -> "done"));
+
+        assertThat(other.get(10, TimeUnit.SECONDS)).isEqualTo("done");
+        holderReleased.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("должен ждать освобождения полосы любого из нескольких ключей")
+    @Test
+    void shouldWaitForStripeOfAnyOfKeys() throws Exception {
+        var holderEntered = new CountDownLatch(1);
+        var holderReleased = new CountDownLatch(1);
+        var waiterEntered = new CountDownLatch(1);
+        var holder = holdLocked(SECOND_KEY, holderEntered, holderReleased);
+        assertThat(holderEntered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        var waiter = executor.submit(() -> lock.callLocked(List.of(FIRST_KEY, SECOND_KEY), () -> {
+            waiterEntered.countDown();
+            return null;
+        }));
+
+        assertThat(waiterEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        holderReleased.countDown();
+        assertThat(waiterEntered.await(10, TimeUnit.SECONDS)).isTrue();
+        holder.get(10, TimeUnit.SECONDS);
+        waiter.get(10, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("должен ждать освобождения всех полос перед действием над всеми ключами")
+    @Test
+    void shouldWaitForAllStripes() throws Exception {
+        var holderEntered = new CountDownLatch(1);
+        var holderReleased = new CountDownLatch(1);
+        var waiterEntered = new CountDownLatch(1);
+        var holder = holdLocked(SECOND_KEY, holderEntered, holderReleased);
+        assertThat(holderEntered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        var waiter = executor.submit(() -> lock.callLockedAll(() -> {
+            waiterEntered.countDown();
+            return null;
+        }));
+
+        assertThat(waiterEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        holderReleased.countDown();
+        assertThat(waiterEntered.await(10, TimeUnit.SECONDS)).isTrue();
+        holder.get(10, TimeUnit.SECONDS);
+        waiter.get(10, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("должен брать полосы нескольких ключей в одном порядке, независимо от порядка ключей")
+    @Test
+    void shouldNotDeadlockOnKeysInOppositeOrders() throws Exception {
+        var results = IntStream.range(0, 1000)
+                .mapToObj(i -> executor.submit(() -> i % 2 == 0
+                        ? lock.callLocked(List.of(FIRST_KEY, SECOND_KEY), () -> i)
+                        : lock.callLocked(List.of(SECOND_KEY, FIRST_KEY), () -> i)))
+                .toList();
+
+        for (var result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isNotNull();
+        }
+    }
+
+    @DisplayName("должен округлять число полос до степени двойки и отклонять непозитивное")
+    @Test
+    void shouldRoundStripesCountUpToPowerOfTwo() {
+        assertThat(new StripedLock(1).size()).isEqualTo(1);
+        assertThat(new StripedLock(3).size()).isEqualTo(4);
+        assertThat(new StripedLock(64).size()).isEqualTo(64);
+        assertThatThrownBy(() -> new StripedLock(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Future<?> holdLocked(long key, CountDownLatch entered, CountDownLatch released) {
+        return executor.submit(() -> lock.runLocked(key, () -> {
+            entered.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+}
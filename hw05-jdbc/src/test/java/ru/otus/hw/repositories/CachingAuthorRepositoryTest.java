@@ -0,0 +1,63 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.otus.hw.models.Author;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Кэширующий репозиторий авторов")
+@JdbcTest
+@Import(JdbcAuthorRepository.class)
+class CachingAuthorRepositoryTest {
+
+    private static final int CACHE_MAX_SIZE = 10;
+
+    @Autowired
+    private JdbcAuthorRepository jdbcRepository;
+
+    private CachingAuthorRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingAuthorRepository(jdbcRepository, CACHE_MAX_SIZE);
+    }
+
+    @DisplayName("должен отдавать повторно запрошенного автора из кэша")
+    @Test
+    void shouldReturnCachedAuthor() {
+        var loadedAuthor = repository.findById(1L);
+        var cachedAuthor = repository.findById(1L);
+
+        assertThat(cachedAuthor).isPresent().get()
+                .isEqualTo(new Author(1L, "Author_1"))
+                .isSameAs(loadedAuthor.orElseThrow());
+        assertThat(repository.stats()).matches(stats -> stats.hits() == 1 && stats.misses() == 1);
+    }
+
+    @DisplayName("должен заполнять кэш при загрузке списка авторов")
+    @Test
+    void shouldCacheAuthorsOnFindAll() {
+        var authors = repository.findAll();
+
+        assertThat(repository.findById(2L)).isPresent().get().isSameAs(authors.get(1));
+        assertThat(repository.findById(100L)).isEmpty();
+        assertThat(repository.stats()).matches(stats -> stats.hits() == 1 && stats.misses() == 1);
+    }
+
+    @DisplayName("должен загружать автора заново после сброса кэша")
+    @Test
+    void shouldReloadAuthorAfterEviction() {
+        var loadedAuthor = repository.findById(1L).orElseThrow();
+        repository.evictAll();
+
+        assertThat(repository.findById(1L)).isPresent().get()
+                .isEqualTo(loadedAuthor)
+                .isNotSameAs(loadedAuthor);
+        assertThat(repository.stats().size()).isEqualTo(1);
+    }
+}
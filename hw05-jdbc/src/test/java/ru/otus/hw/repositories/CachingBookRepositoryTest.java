@@ -0,0 +1,216 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Кэширующий репозиторий книг")
+@ExtendWith(MockitoExtension.class)
+class CachingBookRepositoryTest {
+
+    private static final int CACHE_MAX_SIZE = 2;
+
+    private static final int CONCURRENT_READERS_COUNT = 8;
+
+    @Mock
+    private JdbcBookRepository jdbcRepository;
+
+    private CachingBookRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingBookRepository(jdbcRepository, CACHE_MAX_SIZE);
+    }
+
+    @DisplayName("должен отдавать повторно запрошенную книгу из кэша в виде копии")
+    @Test
+    void shouldReturnCopyOfCachedBook() {
+        given(jdbcRepository.findById(1L)).willReturn(Optional.of(book(1L, "BookTitle_1")));
+
+        var loadedBook = repository.findById(1L).orElseThrow();
+        loadedBook.setTitle("Changed by caller");
+        loadedBook.getGenres().clear();
+        var cachedBook = repository.findById(1L).orElseThrow();
+        cachedBook.getGenres().clear();
+
+        assertThat(repository.findById(1L)).contains(book(1L, "BookTitle_1"));
+        verify(jdbcRepository, times(1)).findById(1L);
+        assertThat(repository.stats())
+                .matches(stats -> stats.hits() == 2 && stats.misses() == 1 && stats.loads() == 1);
+    }
+
+    @DisplayName("должен загружать отсутствующие в кэше книги одним запросом и сохранять порядок id")
+    @Test
+    void shouldLoadMissedBooksByIdsAtOnce() {
+        given(jdbcRepository.findById(2L)).willReturn(Optional.of(book(2L, "BookTitle_2")));
+        given(jdbcRepository.findAllByIds(Set.of(3L, 1L))).willReturn(List.of(book(3L, "BookTitle_3")));
+
+        repository.findById(2L);
+        var books = repository.findAllByIds(new LinkedHashSet<>(List.of(3L, 2L, 1L)));
+
+        assertThat(books).extracting(Book::getId).containsExactly(3L, 2L);
+        verify(jdbcRepository, times(1)).findAllByIds(Set.of(3L, 1L));
+        assertThat(repository.findAllByIds(Set.of(3L))).containsExactly(book(3L, "BookTitle_3"));
+        assertThat(repository.stats())
+                .matches(stats -> stats.hits() == 2 && stats.misses() == 3 && stats.loads() == 2);
+    }
+
+    @DisplayName("должен сбрасывать книгу из кэша при ее сохранении и удалении")
+    @Test
+    void shouldEvictBookOnWrites() {
+        given(jdbcRepository.findById(1L)).willReturn(Optional.of(book(1L, "BookTitle_1")));
+
+        repository.findById(1L);
+        repository.save(book(1L, "BookTitle_10500"));
+        repository.findById(1L);
+        repository.saveAll(List.of(book(1L, "BookTitle_10501")));
+        repository.findById(1L);
+        repository.deleteById(1L);
+        repository.findById(1L);
+
+        verify(jdbcRepository, times(4)).findById(1L);
+        assertThat(repository.stats().hits()).isZero();
+    }
+
+    @DisplayName("не должен оставлять в кэше старую книгу, прочитанную между изменением и его фиксацией")
+    @Test
+    void shouldNotKeepBookReadBeforeWriteIsCommitted() {
+        var committedBook = new AtomicReference<>(book(1L, "BookTitle_1"));
+        given(jdbcRepository.findById(1L)).willAnswer(invocation -> Optional.of(committedBook.get()));
+        given(jdbcRepository.save(any())).willAnswer(invocation -> {
+            // a concurrent reader still sees the committed old row while the write is not committed
+            assertThat(repository.findById(1L)).contains(book(1L, "BookTitle_1"));
+            committedBook.set(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        repository.findById(1L);
+        repository.save(book(1L, "BookTitle_10500"));
+
+        assertThat(repository.findById(1L)).contains(book(1L, "BookTitle_10500"));
+    }
+
+    @DisplayName("должен сбрасывать книгу из кэша после фиксации внешней транзакции")
+    @Test
+    void shouldEvictBookAfterSurroundingTransactionCommit() {
+        var committedBook = new AtomicReference<>(book(1L, "BookTitle_1"));
+        given(jdbcRepository.findById(1L)).willAnswer(invocation -> Optional.of(committedBook.get()));
+        given(jdbcRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            repository.save(book(1L, "BookTitle_10500"));
+            // read by a concurrent caller before the surrounding transaction is committed
+            assertThat(repository.findById(1L)).contains(book(1L, "BookTitle_1"));
+            committedBook.set(book(1L, "BookTitle_10500"));
+            var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(repository.findById(1L)).contains(book(1L, "BookTitle_10500"));
+    }
+
+    @DisplayName("должен сбрасывать из кэша книги, затронутые массовыми изменениями")
+    @Test
+    void shouldEvictBooksOnBulkWrites() {
+        given(jdbcRepository.findById(1L)).willReturn(Optional.of(book(1L, "BookTitle_1")));
+        given(jdbcRepository.replaceGenre(1L, 2L)).willReturn(List.of(1L));
+        given(jdbcRepository.deleteAllByAuthorId(1L)).willReturn(List.of(1L));
+
+        repository.findById(1L);
+        repository.replaceGenre(1L, 2L);
+        repository.findById(1L);
+        repository.deleteAllByAuthorId(1L);
+        repository.findById(1L);
+        repository.deleteAllByIds(List.of(1L, 2L));
+        repository.findById(1L);
+
+        verify(jdbcRepository, times(4)).findById(1L);
+        assertThat(repository.stats().hits()).isZero();
+    }
+
+    @DisplayName("должен вытеснять давно запрошенные книги при превышении размера кэша")
+    @Test
+    void shouldEvictLeastRecentlyUsedBooks() {
+        IntStream.rangeClosed(1, 3).forEach(id -> given(jdbcRepository.findById(id))
+                .willReturn(Optional.of(book(id, "BookTitle_" + id))));
+
+        repository.findById(1L);
+        repository.findById(2L);
+        repository.findById(1L);
+        repository.findById(3L);
+        repository.findById(2L);
+
+        verify(jdbcRepository, times(2)).findById(2L);
+        assertThat(repository.stats()).matches(stats -> stats.size() == CACHE_MAX_SIZE && stats.hits() == 1);
+    }
+
+    @DisplayName("должен загружать книгу один раз при одновременных промахах")
+    @Test
+    void shouldLoadBookOnceForConcurrentMisses() throws Exception {
+        var loadStarted = new CountDownLatch(1);
+        var loadAllowed = new CountDownLatch(1);
+        given(jdbcRepository.findById(1L)).willAnswer(invocation -> {
+            loadStarted.countDown();
+            loadAllowed.await(10, TimeUnit.SECONDS);
+            return Optional.of(book(1L, "BookTitle_1"));
+        });
+
+        var executor = Executors.newFixedThreadPool(CONCURRENT_READERS_COUNT);
+        try {
+            var readers = IntStream.range(0, CONCURRENT_READERS_COUNT)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> repository.findById(1L), executor))
+                    .toList();
+            assertThat(loadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            TimeUnit.MILLISECONDS.sleep(200);
+            loadAllowed.countDown();
+
+            var books = new ArrayList<Book>();
+            for (var reader : readers) {
+                books.add(reader.get(10, TimeUnit.SECONDS).orElseThrow());
+            }
+            assertThat(books).hasSize(CONCURRENT_READERS_COUNT)
+                    .allMatch(book -> book.equals(book(1L, "BookTitle_1")));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(jdbcRepository, times(1)).findById(1L);
+        assertThat(repository.stats())
+                .matches(stats -> stats.loads() == 1 && stats.maxLoadTime().toMillis() >= 200);
+    }
+
+    private static Book book(long id, String title) {
+        return new Book(id, title, new Author(1L, "Author_1"),
+                new ArrayList<>(List.of(new Genre(1L, "Genre_1"), new Genre(2L, "Genre_2"))));
+    }
+}
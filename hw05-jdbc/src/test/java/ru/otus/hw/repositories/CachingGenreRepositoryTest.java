@@ -0,0 +1,78 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.otus.hw.models.Genre;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Кэширующий репозиторий жанров")
+@JdbcTest
+@Import(JdbcGenreRepository.class)
+class CachingGenreRepositoryTest {
+
+    private static final int CACHE_MAX_SIZE = 10;
+
+    @Autowired
+    private JdbcGenreRepository jdbcRepository;
+
+    private CachingGenreRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingGenreRepository(jdbcRepository, CACHE_MAX_SIZE);
+    }
+
+    @DisplayName("должен отдавать повторно запрошенные жанры из кэша")
+    @Test
+    void shouldReturnCachedGenres() {
+        var loadedGenres = repository.findAllByIds(Set.of(1L, 6L));
+        var cachedGenres = repository.findAllByIds(Set.of(6L, 1L));
+
+        assertThat(cachedGenres).containsExactly(new Genre(1L, "Genre_1"), new Genre(6L, "Genre_6"));
+        assertThat(cachedGenres.get(0)).isSameAs(loadedGenres.get(0));
+        assertThat(cachedGenres.get(1)).isSameAs(loadedGenres.get(1));
+        assertThat(repository.stats()).matches(stats -> stats.hits() == 2 && stats.misses() == 2);
+    }
+
+    @DisplayName("должен догружать из БД только отсутствующие в кэше жанры")
+    @Test
+    void shouldLoadOnlyMissingGenres() {
+        repository.findAll();
+        var genres = repository.findAllByIds(Set.of(2L, 3L, 100L));
+
+        assertThat(genres).containsExactly(new Genre(2L, "Genre_2"), new Genre(3L, "Genre_3"));
+        assertThat(repository.stats()).matches(stats -> stats.hits() == 2 && stats.misses() == 1);
+    }
+
+    @DisplayName("должен загружать жанры заново после сброса кэша")
+    @Test
+    void shouldReloadGenresAfterEviction() {
+        var loadedGenres = repository.findAllByIds(Set.of(1L));
+        repository.evictAll();
+        var reloadedGenres = repository.findAllByIds(Set.of(1L));
+
+        assertThat(reloadedGenres).isEqualTo(loadedGenres);
+        assertThat(reloadedGenres.get(0)).isNotSameAs(loadedGenres.get(0));
+        assertThat(repository.stats()).matches(stats -> stats.hits() == 0 && stats.misses() == 2);
+    }
+
+    @DisplayName("должен хранить не больше заданного числа жанров, вытесняя давно запрошенные")
+    @Test
+    void shouldEvictLeastRecentlyUsedGenres() {
+        var boundedRepository = new CachingGenreRepository(jdbcRepository, 2);
+        boundedRepository.findAllByIds(Set.of(1L, 2L));
+        boundedRepository.findAllByIds(Set.of(1L));
+        boundedRepository.findAllByIds(Set.of(3L));
+        boundedRepository.findAllByIds(Set.of(1L, 2L));
+
+        assertThat(boundedRepository.stats())
+                .matches(stats -> stats.size() == 2 && stats.hits() == 2 && stats.misses() == 4);
+    }
+}
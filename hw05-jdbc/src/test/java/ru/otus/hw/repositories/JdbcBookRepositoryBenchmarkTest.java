@@ -0,0 +1,102 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.models.Book;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The books are read outside of the test transaction: H2 reads the rows of a large uncommitted transaction
+// much slower than committed ones, which made the join look faster than it is
+@DisplayName("Замеры производительности чтения книг (-Dbenchmark=true)")
+@JdbcTest
+@Import(JdbcBookRepository.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class JdbcBookRepositoryBenchmarkTest {
+
+    private static final int BOOKS_COUNT = 100_000;
+
+    private static final int GENRES_PER_BOOK = 2;
+
+    private static final int ITERATIONS = 5;
+
+    @Autowired
+    private JdbcBookRepository repositoryJdbc;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @BeforeEach
+    void setUp() {
+        var books = IntStream.range(0, BOOKS_COUNT)
+                .mapToObj(i -> new MapSqlParameterSource(Map.of("title", "Bench_" + i, "author_id", i % 3 + 1)))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into books(title, author_id) values (:title, :author_id)", books);
+
+        var relations = jdbc.getJdbcOperations().queryForList("select id from books where title like 'Bench_%'",
+                        Long.class).stream()
+                .flatMap(bookId -> IntStream.range(0, GENRES_PER_BOOK).mapToObj(i ->
+                        new MapSqlParameterSource(Map.of("book_id", bookId, "genre_id", (bookId + i) % 6 + 1))))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into books_genres(book_id, genre_id) values (:book_id, :genre_id)", relations);
+    }
+
+    @DisplayName("findAll тремя запросами против однопроходного соединения")
+    @Test
+    void compareThreeQueriesWithSinglePass() {
+        assertThat(repositoryJdbc.findAll()).containsExactlyElementsOf(findAllWithSinglePass());
+
+        var threeQueries = measure(repositoryJdbc::findAll);
+        var singlePass = measure(this::findAllWithSinglePass);
+
+        System.out.printf("findAll, %d books: three queries %s; single pass %s%n",
+                BOOKS_COUNT, threeQueries, singlePass);
+    }
+
+    private Measurement measure(Supplier<List<Book>> findAll) {
+        var threadMxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        findAll.get();
+        var threadId = Thread.currentThread().getId();
+        var allocatedBefore = threadMxBean.getThreadAllocatedBytes(threadId);
+        var startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            findAll.get();
+        }
+        var elapsedNanos = System.nanoTime() - startedAt;
+        var allocated = threadMxBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Measurement(elapsedNanos / ITERATIONS / 1_000_000, allocated / ITERATIONS / (1024 * 1024));
+    }
+
+    // The join of books, authors and genres ordered by book id, assembled as its rows arrive
+    private List<Book> findAllWithSinglePass() {
+        try (var books = repositoryJdbc.streamAll()) {
+            return books.toList();
+        }
+    }
+
+    private record Measurement(long millisPerCall, long allocatedMegabytesPerCall) {
+
+        @Override
+        public String toString() {
+            return "%d ms, %d MB allocated per call".formatted(millisPerCall, allocatedMegabytesPerCall);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Books are saved outside of the test transaction: a single uncommitted transaction of this size slows H2 down
+// more and more with every statement and skews the comparison
+@DisplayName("Замеры производительности сохранения книг (-Dbenchmark=true)")
+@JdbcTest
+@Import({JdbcBookRepository.class, JdbcGenreRepository.class})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class JdbcBookRepositorySaveAllBenchmarkTest {
+
+    private static final int BOOKS_COUNT = 100_000;
+
+    private static final int GENRES_PER_BOOK = 2;
+
+    private static final int ITERATIONS = 5;
+
+    private static final int SAVED_BOOKS_COUNT = 5_000;
+
+    @Autowired
+    private JdbcBookRepository repositoryJdbc;
+
+    @Autowired
+    private JdbcGenreRepository genreRepository;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @BeforeEach
+    void setUp() {
+        var books = IntStream.range(0, BOOKS_COUNT)
+                .mapToObj(i -> new MapSqlParameterSource(Map.of("title", "Bench_" + i, "author_id", i % 3 + 1)))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into books(title, author_id) values (:title, :author_id)", books);
+
+        var relations = jdbc.getJdbcOperations().queryForList("select id from books where title like 'Bench_%'",
+                        Long.class).stream()
+                .flatMap(bookId -> IntStream.range(0, GENRES_PER_BOOK).mapToObj(i ->
+                        new MapSqlParameterSource(Map.of("book_id", bookId, "genre_id", (bookId + i) % 6 + 1))))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into books_genres(book_id, genre_id) values (:book_id, :genre_id)", relations);
+    }
+
+    @DisplayName("пакетный saveAll против сохранения книг по одной")
+    @Test
+    void compareSaveAllWithSaveLoop() {
+        var books = repositoryJdbc.findPage(0, SAVED_BOOKS_COUNT);
+        var genres = genreRepository.findAll();
+
+        var saveLoopMillis = measureMillis(() -> {
+            books.forEach(book -> repositoryJdbc.save(withNextGenre(book, genres)));
+            books.forEach(book -> repositoryJdbc.save(withNewId(book)));
+        });
+        var saveAllMillis = measureMillis(() -> {
+            repositoryJdbc.saveAll(books.stream().map(book -> withNextGenre(book, genres)).toList());
+            repositoryJdbc.saveAll(books.stream().map(this::withNewId).toList());
+        });
+
+        var savedBooksPerIteration = SAVED_BOOKS_COUNT * 2;
+        System.out.printf("save, %d updated and %d new books: loop %d ms (%d books/s); saveAll %d ms (%d books/s)%n",
+                SAVED_BOOKS_COUNT, SAVED_BOOKS_COUNT,
+                saveLoopMillis, perSecond(savedBooksPerIteration, saveLoopMillis),
+                saveAllMillis, perSecond(savedBooksPerIteration, saveAllMillis));
+    }
+
+    private Book withNextGenre(Book book, List<Genre> genres) {
+        var nextGenre = genres.get((int) (book.getGenres().get(0).getId() % genres.size()));
+        book.setGenres(List.of(book.getGenres().get(1), nextGenre));
+        book.setTitle(book.getTitle() + "'");
+        return book;
+    }
+
+    private Book withNewId(Book book) {
+        return new Book(0, book.getTitle(), book.getAuthor(), book.getGenres());
+    }
+
+    private static long measureMillis(Runnable action) {
+        action.run();
+        var startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - startedAt) / ITERATIONS / 1_000_000;
+    }
+
+    private static long perSecond(int operationsPerCall, long millisPerCall) {
+        return operationsPerCall * 1000L / Math.max(millisPerCall, 1);
+    }
+}
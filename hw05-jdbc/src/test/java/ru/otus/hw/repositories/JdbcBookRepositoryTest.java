@@ -6,25 +6,61 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
 import ru.otus.hw.models.Author;
 import ru.otus.hw.models.Book;
+import ru.otus.hw.models.BookGenreRelation;
 import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.JdbcBookRepository.GenresRelationsSyncStats;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DisplayName("Репозиторий на основе Jdbc для работы с книгами ")
 @JdbcTest
 @Import({JdbcBookRepository.class, JdbcGenreRepository.class})
+@RecordApplicationEvents
 class JdbcBookRepositoryTest {
 
+    private static final int STREAMED_BOOKS_COUNT = 2500;
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     @Autowired
     private JdbcBookRepository repositoryJdbc;
 
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+
+    @Autowired
+    private ApplicationEvents events;
+
     private List<Author> dbAuthors;
 
     private List<Genre> dbGenres;
@@ -58,6 +94,95 @@ class JdbcBookRepositoryTest {
         actualBooks.forEach(System.out::println);
     }
 
+    @DisplayName("должен загружать в списке всех книг книги без жанров и жанры книги по возрастанию id")
+    @Test
+    void shouldReturnBooksWithoutGenresAndSortedGenresInBooksList() {
+        var author = new Author(1L, "Author_1");
+        var bookWithoutGenres = repositoryJdbc.save(new Book(0, "BookTitle_10500", author, List.of()));
+        var bookWithGenres = repositoryJdbc.save(new Book(0, "BookTitle_10501", author,
+                List.of(new Genre(5L, "Genre_5"), new Genre(2L, "Genre_2"))));
+
+        assertThat(repositoryJdbc.findAll()).endsWith(bookWithoutGenres,
+                new Book(bookWithGenres.getId(), "BookTitle_10501", author,
+                        List.of(new Genre(2L, "Genre_2"), new Genre(5L, "Genre_5"))));
+    }
+
+    @DisplayName("должен загружать книги по списку id в запрошенном порядке, пропуская отсутствующие")
+    @Test
+    void shouldReturnBooksByIdsInRequestedOrder() {
+        var ids = new LinkedHashSet<>(List.of(3L, 10500L, 1L, 2L));
+
+        assertThat(repositoryJdbc.findAllByIds(ids))
+                .containsExactly(dbBooks.get(2), dbBooks.get(0), dbBooks.get(1));
+    }
+
+    @DisplayName("должен загружать книги по списку id частями, если их больше размера IN-списка")
+    @Test
+    void shouldReturnBooksByIdsInChunks() {
+        var newBooks = new ArrayList<>(repositoryJdbc.insertAll(IntStream.range(0, 2500)
+                .mapToObj(i -> new Book(0, "Chunked_" + i, dbAuthors.get(i % 3), List.of(dbGenres.get(i % 6))))
+                .toList()));
+        Collections.reverse(newBooks);
+        var ids = newBooks.stream().map(Book::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+
+        assertThat(repositoryJdbc.findAllByIds(ids)).containsExactlyElementsOf(newBooks);
+    }
+
+    @DisplayName("должен загружать страницу книг, следующих за заданным id")
+    @Test
+    void shouldReturnBooksPageAfterId() {
+        assertThat(repositoryJdbc.findPage(0, 2)).containsExactlyElementsOf(dbBooks.subList(0, 2));
+        assertThat(repositoryJdbc.findPage(2, 2)).containsExactlyElementsOf(dbBooks.subList(2, 3));
+        assertThat(repositoryJdbc.findPage(3, 2)).isEmpty();
+    }
+
+    @DisplayName("должен отдавать потоком те же книги, что и список всех книг")
+    @Test
+    void shouldStreamAllBooks() {
+        try (var books = repositoryJdbc.streamAll()) {
+            assertThat(books).containsExactlyElementsOf(dbBooks);
+        }
+    }
+
+    // The first book is complete once the row of the next book is read, so no more than one row is read ahead
+    @DisplayName("должен читать строки потока книг по мере его потребления")
+    @Test
+    void shouldReadStreamedRowsLazily() {
+        var books = IntStream.range(0, STREAMED_BOOKS_COUNT)
+                .mapToObj(i -> new MapSqlParameterSource(Map.of("title", "Streamed_" + i, "author_id", 1)))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("insert into books(title, author_id) values (:title, :author_id)", books);
+        var operations = new RowCountingJdbcTemplate(dataSource);
+        var repository = new JdbcBookRepository(new NamedParameterJdbcTemplate(operations), event -> { },
+                beanFactory.getBeanProvider(BookCatalogRepository.class),
+                beanFactory.getBeanProvider(BookChangeLogRepository.class));
+
+        try (var stream = repository.streamAll()) {
+            var iterator = stream.iterator();
+            assertThat(iterator.next()).isEqualTo(dbBooks.get(0));
+            assertThat(operations.rowsCount).isEqualTo(dbBooks.get(0).getGenres().size() + 1);
+
+            var streamedBooksCount = 1;
+            for (; iterator.hasNext(); iterator.next()) {
+                streamedBooksCount++;
+            }
+            assertThat(streamedBooksCount).isEqualTo(dbBooks.size() + STREAMED_BOOKS_COUNT);
+        }
+        assertThat(operations.fetchSize).isEqualTo(STREAM_FETCH_SIZE);
+    }
+
+    @DisplayName("должен отдавать потоком все связи книг с жанрами")
+    @Test
+    void shouldStreamAllGenreRelations() {
+        var expectedRelations = dbBooks.stream()
+                .flatMap(book -> book.getGenres().stream()
+                        .map(genre -> new BookGenreRelation(book.getId(), genre.getId())))
+                .toList();
+        try (var relations = repositoryJdbc.streamAllGenreRelations()) {
+            assertThat(relations).containsExactlyInAnyOrderElementsOf(expectedRelations);
+        }
+    }
+
     @DisplayName("должен сохранять новую книгу")
     @Test
     void shouldSaveNewBook() {
@@ -74,6 +199,40 @@ class JdbcBookRepositoryTest {
                 .isEqualTo(returnedBook);
     }
 
+    @DisplayName("должен сохранять пакет новых книг")
+    @Test
+    void shouldInsertAllNewBooks() {
+        var expectedBooks = List.of(
+                new Book(0, "BookTitle_10501", dbAuthors.get(0), List.of(dbGenres.get(0), dbGenres.get(2))),
+                new Book(0, "BookTitle_10502", dbAuthors.get(1), List.of(dbGenres.get(5))));
+        var returnedBooks = repositoryJdbc.insertAll(expectedBooks);
+
+        assertThat(returnedBooks).allMatch(book -> book.getId() > 0)
+                .extracting(Book::getId).doesNotHaveDuplicates();
+        returnedBooks.forEach(book -> assertThat(repositoryJdbc.findById(book.getId()))
+                .isPresent()
+                .get()
+                .isEqualTo(book));
+    }
+
+    @DisplayName("должен сохранять пакет новых и измененных книг")
+    @Test
+    void shouldSaveAllNewAndUpdatedBooks() {
+        var expectedBooks = List.of(
+                new Book(0, "BookTitle_10501", dbAuthors.get(0), List.of(dbGenres.get(0), dbGenres.get(2))),
+                new Book(1L, "BookTitle_10502", dbAuthors.get(1), List.of(dbGenres.get(1), dbGenres.get(5))),
+                new Book(2L, "BookTitle_2", dbAuthors.get(1), List.of(dbGenres.get(2), dbGenres.get(3))));
+        var syncStatsBefore = repositoryJdbc.getGenresRelationsSyncStats();
+        var returnedBooks = repositoryJdbc.saveAll(expectedBooks);
+
+        assertThat(returnedBooks).allMatch(book -> book.getId() > 0);
+        assertThat(syncedSince(syncStatsBefore)).isEqualTo(new GenresRelationsSyncStats(1, 1));
+        returnedBooks.forEach(book -> assertThat(repositoryJdbc.findById(book.getId()))
+                .isPresent()
+                .get()
+                .isEqualTo(book));
+    }
+
     @DisplayName("должен сохранять измененную книгу")
     @Test
     void shouldSaveUpdatedBook() {
@@ -96,6 +255,29 @@ class JdbcBookRepositoryTest {
                 .isEqualTo(returnedBook);
     }
 
+    @DisplayName("должен менять только изменившиеся связи книги с жанрами")
+    @Test
+    void shouldKeepUnchangedGenresRelationsOnUpdate() {
+        var keptRelationRowIdSql = "select _rowid_ from books_genres where book_id = 1 and genre_id = 2";
+        var keptRelationRowId = jdbc.getJdbcOperations().queryForObject(keptRelationRowIdSql, Long.class);
+        var expectedBook = new Book(1L, "BookTitle_1", dbAuthors.get(0),
+                List.of(dbGenres.get(1), dbGenres.get(2)));
+        var syncStatsBefore = repositoryJdbc.getGenresRelationsSyncStats();
+
+        repositoryJdbc.save(expectedBook);
+
+        assertThat(syncedSince(syncStatsBefore)).isEqualTo(new GenresRelationsSyncStats(1, 1));
+        repositoryJdbc.save(expectedBook);
+        assertThat(syncedSince(syncStatsBefore)).isEqualTo(new GenresRelationsSyncStats(1, 1));
+
+        assertThat(repositoryJdbc.findById(expectedBook.getId()))
+                .isPresent()
+                .get()
+                .isEqualTo(expectedBook);
+        assertThat(jdbc.getJdbcOperations().queryForObject(keptRelationRowIdSql, Long.class))
+                .isEqualTo(keptRelationRowId);
+    }
+
     @DisplayName("должен удалять книгу по id ")
     @Test
     void shouldDeleteBook() {
@@ -104,6 +286,72 @@ class JdbcBookRepositoryTest {
         assertThat(repositoryJdbc.findById(1L)).isEmpty();
     }
 
+    @DisplayName("должен удалять книги по списку id и возвращать id удаленных")
+    @Test
+    void shouldDeleteAllBooksByIds() {
+        var deletedIds = repositoryJdbc.deleteAllByIds(List.of(1L, 3L, 10500L));
+
+        assertThat(deletedIds).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(repositoryJdbc.findAll()).containsExactly(dbBooks.get(1));
+        assertThat(events.stream(BooksDeletedEvent.class).map(BooksDeletedEvent::booksIds))
+                .containsExactly(deletedIds);
+    }
+
+    @DisplayName("должен удалять книги частями, если их больше размера IN-списка")
+    @Test
+    void shouldDeleteAllBooksByIdsInChunks() {
+        var newBooks = repositoryJdbc.insertAll(IntStream.range(0, 2500)
+                .mapToObj(i -> new Book(0, "Chunked_" + i, dbAuthors.get(0), List.of(dbGenres.get(0))))
+                .toList());
+        var newBooksIds = newBooks.stream().map(Book::getId).toList();
+
+        assertThat(repositoryJdbc.deleteAllByIds(newBooksIds)).containsExactlyInAnyOrderElementsOf(newBooksIds);
+        assertThat(repositoryJdbc.findAll()).containsExactlyElementsOf(dbBooks);
+    }
+
+    @DisplayName("должен удалять все книги автора")
+    @Test
+    void shouldDeleteAllBooksByAuthorId() {
+        var newBook = repositoryJdbc.save(new Book(0, "BookTitle_10500", dbAuthors.get(1), List.of(dbGenres.get(0))));
+
+        assertThat(repositoryJdbc.deleteAllByAuthorId(dbAuthors.get(1).getId()))
+                .containsExactly(2L, newBook.getId());
+        assertThat(repositoryJdbc.findAll()).containsExactly(dbBooks.get(0), dbBooks.get(2));
+        assertThat(repositoryJdbc.deleteAllByAuthorId(dbAuthors.get(1).getId())).isEmpty();
+    }
+
+    @DisplayName("должен переносить книги из одного жанра в другой без дублирования связей")
+    @Test
+    void shouldReplaceGenre() {
+        repositoryJdbc.save(new Book(3L, "BookTitle_3", dbAuthors.get(2), List.of(dbGenres.get(1), dbGenres.get(4))));
+
+        var changedIds = repositoryJdbc.replaceGenre(dbGenres.get(1).getId(), dbGenres.get(5).getId());
+
+        assertThat(changedIds).containsExactly(1L, 3L);
+        var expectedBooks = List.of(
+                new Book(1L, "BookTitle_1", dbAuthors.get(0), List.of(dbGenres.get(0), dbGenres.get(5))),
+                dbBooks.get(1),
+                new Book(3L, "BookTitle_3", dbAuthors.get(2), List.of(dbGenres.get(4), dbGenres.get(5))));
+        assertThat(repositoryJdbc.findAll()).containsExactlyElementsOf(expectedBooks);
+        assertThat(events.stream(BooksSavedEvent.class).map(BooksSavedEvent::books))
+                .last().isEqualTo(List.of(expectedBooks.get(0), expectedBooks.get(2)));
+    }
+
+    @DisplayName("должен публиковать события о сохраненных и удаленных книгах")
+    @Test
+    void shouldPublishBooksChangesEvents() {
+        var newBook = repositoryJdbc.save(new Book(0, "BookTitle_10500", dbAuthors.get(0), List.of(dbGenres.get(0))));
+        var updatedBooks = repositoryJdbc.saveAll(List.of(
+                new Book(2L, "BookTitle_10501", dbAuthors.get(1), List.of(dbGenres.get(2)))));
+        repositoryJdbc.deleteById(3L);
+        repositoryJdbc.deleteById(3L);
+
+        assertThat(events.stream(BooksSavedEvent.class).map(BooksSavedEvent::books))
+                .containsExactly(List.of(newBook), updatedBooks);
+        assertThat(events.stream(BooksDeletedEvent.class).map(BooksDeletedEvent::booksIds))
+                .containsExactly(List.of(3L));
+    }
+
     private static List<Author> getDbAuthors() {
         return IntStream.range(1, 4).boxed()
                 .map(id -> new Author(id, "Author_" + id))
@@ -131,4 +379,34 @@ class JdbcBookRepositoryTest {
         var dbGenres = getDbGenres();
         return getDbBooks(dbAuthors, dbGenres);
     }
-}
\ No newline at end of file
+
+    // Counts the rows mapped by streaming queries and keeps the fetch size of their statements
+    private static class RowCountingJdbcTemplate extends JdbcTemplate {
+
+        private int rowsCount;
+
+        private int fetchSize;
+
+        RowCountingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> Stream<T> queryForStream(PreparedStatementCreator creator, RowMapper<T> rowMapper) {
+            return super.queryForStream(connection -> {
+                var statement = creator.createPreparedStatement(connection);
+                fetchSize = statement.getFetchSize();
+                return statement;
+            }, (rs, rowNum) -> {
+                rowsCount++;
+                return rowMapper.mapRow(rs, rowNum);
+            });
+        }
+    }
+
+    private GenresRelationsSyncStats syncedSince(GenresRelationsSyncStats before) {
+        var after = repositoryJdbc.getGenresRelationsSyncStats();
+        return new GenresRelationsSyncStats(after.insertedCount() - before.insertedCount(),
+                after.deletedCount() - before.deletedCount());
+    }
+}
@@ -0,0 +1,154 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcOperations;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Планы запросов репозиториев на основе Jdbc")
+@JdbcTest
+@Import({JdbcAuthorRepository.class, JdbcBookRepository.class, JdbcGenreRepository.class,
+        JdbcBookStatsRepository.class})
+class JdbcRepositoriesQueryPlanTest {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+
+    private static final String INDEX_SORTED = "/* index sorted */";
+
+    private static final Pattern EXPLAINABLE_STATEMENT = Pattern.compile("^(select|insert|update|delete)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private JdbcAuthorRepository authorRepository;
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private JdbcGenreRepository genreRepository;
+
+    @Autowired
+    private JdbcBookStatsRepository statsRepository;
+
+    @Autowired
+    private JdbcOperations jdbc;
+
+    @DisplayName("должен загружать авторов по индексу, кроме полного списка")
+    @Test
+    void shouldUseIndexesForAuthorsQueries() {
+        assertNoTableScans(() -> authorRepository.findById(1L));
+        assertNoTableScans(() -> authorRepository.findAll(), "AUTHORS");
+    }
+
+    @DisplayName("должен загружать жанры по индексу, кроме полного списка")
+    @Test
+    void shouldUseIndexesForGenresQueries() {
+        assertNoTableScans(() -> genreRepository.findAllByIds(Set.of(1L, 2L)));
+        assertNoTableScans(() -> genreRepository.findAll(), "GENRES");
+    }
+
+    @DisplayName("должен загружать книги по индексу")
+    @Test
+    void shouldUseIndexesForBooksQueries() {
+        assertNoTableScans(() -> bookRepository.findById(1L));
+        assertNoTableScans(() -> bookRepository.findAll());
+        assertNoTableScans(() -> bookRepository.findPage(1L, 2));
+        assertNoTableScans(() -> bookRepository.findAllByIds(Set.of(3L, 1L)));
+        assertNoTableScans(() -> {
+            try (var books = bookRepository.streamAll()) {
+                books.forEach(book -> { });
+            }
+        });
+    }
+
+    @DisplayName("должен сохранять и удалять книги по индексу")
+    @Test
+    void shouldUseIndexesForBooksUpdates() {
+        var author = new Author(1L, "Author_1");
+        var genres = List.of(new Genre(1L, "Genre_1"), new Genre(3L, "Genre_3"));
+
+        assertNoTableScans(() -> bookRepository.save(new Book(0, "BookTitle_10500", author, genres)));
+        assertNoTableScans(() -> bookRepository.save(new Book(1L, "BookTitle_10500", author, genres)));
+        assertNoTableScans(() -> bookRepository.saveAll(List.of(
+                new Book(0, "BookTitle_10501", author, genres),
+                new Book(2L, "BookTitle_10502", author, genres))));
+        assertNoTableScans(() -> bookRepository.deleteById(1L));
+    }
+
+    @DisplayName("должен выполнять массовые изменения книг по индексу")
+    @Test
+    void shouldUseIndexesForBooksBulkUpdates() {
+        assertNoTableScans(() -> bookRepository.replaceGenre(3L, 1L));
+        assertNoTableScans(() -> bookRepository.deleteAllByIds(List.of(2L, 10500L)));
+        assertNoTableScans(() -> bookRepository.deleteAllByAuthorId(3L));
+    }
+
+    @DisplayName("должен читать выборку связей книг с жанрами в порядке индекса, не сортируя таблицу")
+    @Test
+    void shouldReadGenreRelationsSampleInIndexOrder() {
+        var statements = executedStatementsOf(() -> {
+            try (var relations = statsRepository.streamGenreRelationsOfBuckets(1024, 0, 16)) {
+                relations.forEach(relation -> { });
+            }
+        });
+
+        assertThat(statements).isNotEmpty()
+                .allSatisfy(sql -> assertThat(planOf(sql)).as(sql).contains(INDEX_SORTED));
+        assertThat(statements).allSatisfy(sql -> assertThat(scannedTablesOf(sql)).as(sql).isEmpty());
+    }
+
+    @DisplayName("должен находить по индексу строки, удаляемые каскадно")
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "select id from books where author_id = 1",
+            "select book_id from books_genres where genre_id = 1",
+            "select book_id from books_genres where book_id = 1"})
+    void shouldUseIndexesForCascadeDeletes(String referencingRowsSql) {
+        assertThat(scannedTablesOf(referencingRowsSql)).isEmpty();
+    }
+
+    private void assertNoTableScans(Runnable repositoryCall, String... allowedScannedTables) {
+        assertThat(executedStatementsOf(repositoryCall)).isNotEmpty()
+                .allSatisfy(sql -> assertThat(scannedTablesOf(sql)).as(sql)
+                        .isSubsetOf(allowedScannedTables));
+    }
+
+    private List<String> executedStatementsOf(Runnable repositoryCall) {
+        jdbc.execute("set query_statistics true");
+        try {
+            repositoryCall.run();
+            return jdbc.queryForList("select sql_statement from information_schema.query_statistics",
+                            String.class).stream()
+                    .filter(sql -> EXPLAINABLE_STATEMENT.matcher(sql.strip()).find())
+                    .filter(sql -> !sql.contains("information_schema"))
+                    .toList();
+        } finally {
+            jdbc.execute("set query_statistics false");
+        }
+    }
+
+    private String planOf(String sql) {
+        return String.join("\n", jdbc.queryForList("explain " + sql, String.class));
+    }
+
+    private Set<String> scannedTablesOf(String sql) {
+        var plan = planOf(sql);
+        return TABLE_SCAN.matcher(plan).results()
+                .map(match -> match.group(1))
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,116 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import ru.otus.hw.config.R2dbcConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры производительности Jdbc и R2dbc репозиториев книг при параллельных запросах (-Dbenchmark=true)")
+@JdbcTest
+@ActiveProfiles("r2dbc")
+@Import({R2dbcConfig.class, R2dbcBookRepository.class, JdbcBookRepository.class})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class R2dbcBookRepositoryBenchmarkTest {
+
+    private static final int REQUESTS_COUNT = 20_000;
+
+    private static final int BOOKS_COUNT = 3;
+
+    @Autowired
+    private R2dbcBookRepository repositoryR2dbc;
+
+    @Autowired
+    private JdbcBookRepository repositoryJdbc;
+
+    // Jdbc serves every parallel request with its own blocked thread, R2dbc keeps the same number of requests
+    // in flight with flatMap on the caller thread. Note that r2dbc-h2 runs the embedded H2 engine synchronously,
+    // so the comparison shows the threads cost rather than the gain of a truly non-blocking driver
+    @DisplayName("поиск книги по id: поток на запрос против неблокирующего конвейера")
+    @ParameterizedTest(name = "параллельных запросов: {0}")
+    @ValueSource(ints = {64, 256, 1024})
+    void compareFindByIdUnderConcurrency(int parallelRequests) throws Exception {
+        var jdbc = measure(() -> findByIdWithThreads(parallelRequests));
+        var r2dbc = measure(() -> findByIdWithFlatMap(parallelRequests));
+
+        System.out.printf("findById, %d requests, %d in parallel: jdbc %s; r2dbc %s%n",
+                REQUESTS_COUNT, parallelRequests, jdbc, r2dbc);
+    }
+
+    private long findByIdWithThreads(int parallelRequests) throws Exception {
+        var executor = Executors.newFixedThreadPool(parallelRequests);
+        try {
+            var start = new CountDownLatch(1);
+            var found = new AtomicLong();
+            var results = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < parallelRequests; thread++) {
+                var threadIndex = thread;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = threadIndex; i < REQUESTS_COUNT; i += parallelRequests) {
+                        repositoryJdbc.findById(i % BOOKS_COUNT + 1).ifPresent(book -> found.incrementAndGet());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var result : results) {
+                result.get(5, TimeUnit.MINUTES);
+            }
+            return found.get();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private long findByIdWithFlatMap(int parallelRequests) {
+        return Flux.range(0, REQUESTS_COUNT)
+                .flatMap(i -> repositoryR2dbc.findById(i % BOOKS_COUNT + 1), parallelRequests)
+                .count()
+                .block();
+    }
+
+    private Measurement measure(Callable<Long> action) throws Exception {
+        var threadMxBean = ManagementFactory.getThreadMXBean();
+        action.call();
+        threadMxBean.resetPeakThreadCount();
+        var threadsBefore = threadMxBean.getThreadCount();
+        var startedAt = System.nanoTime();
+        var found = action.call();
+        var elapsedNanos = System.nanoTime() - startedAt;
+
+        assertThat(found).isEqualTo(REQUESTS_COUNT);
+        return new Measurement((long) (REQUESTS_COUNT * 1e9 / elapsedNanos),
+                threadMxBean.getPeakThreadCount() - threadsBefore);
+    }
+
+    private record Measurement(long requestsPerSecond, int extraThreads) {
+
+        @Override
+        public String toString() {
+            return "%d requests/s, %d extra threads at peak".formatted(requestsPerSecond, extraThreads);
+        }
+    }
+}
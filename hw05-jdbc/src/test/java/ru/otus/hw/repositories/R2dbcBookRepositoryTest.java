@@ -0,0 +1,134 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.BaseSubscriber;
+import ru.otus.hw.config.R2dbcConfig;
+import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Репозиторий на основе R2dbc для работы с книгами ")
+@JdbcTest
+@ActiveProfiles("r2dbc")
+@Import({R2dbcConfig.class, R2dbcBookRepository.class, JdbcBookRepository.class, JdbcGenreRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class R2dbcBookRepositoryTest {
+
+    @Autowired
+    private R2dbcBookRepository repositoryR2dbc;
+
+    @Autowired
+    private JdbcBookRepository repositoryJdbc;
+
+    private List<Author> dbAuthors;
+
+    private List<Genre> dbGenres;
+
+    @BeforeEach
+    void setUp() {
+        dbAuthors = IntStream.range(1, 4).boxed().map(id -> new Author(id, "Author_" + id)).toList();
+        dbGenres = IntStream.range(1, 7).boxed().map(id -> new Genre(id, "Genre_" + id)).toList();
+    }
+
+    @DisplayName("должен загружать те же книги, что и репозиторий на основе Jdbc")
+    @Test
+    void shouldReturnSameBooksAsJdbcRepository() {
+        assertThat(repositoryR2dbc.findAll().collectList().block())
+                .containsExactlyElementsOf(repositoryJdbc.findAll());
+        assertThat(repositoryR2dbc.findById(2).block()).isEqualTo(repositoryJdbc.findById(2).orElseThrow());
+        assertThat(repositoryR2dbc.findById(10500).blockOptional()).isEmpty();
+    }
+
+    @DisplayName("должен отдавать книги не больше, чем их запросил подписчик")
+    @Test
+    void shouldEmitBooksOnDemand() throws InterruptedException {
+        var received = new CopyOnWriteArrayList<Book>();
+        var subscriber = new BaseSubscriber<Book>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(Book book) {
+                received.add(book);
+            }
+        };
+        repositoryR2dbc.findAll().subscribe(subscriber);
+        awaitReceived(received, 1);
+
+        assertThat(received).hasSize(1);
+
+        subscriber.request(1);
+        awaitReceived(received, 2);
+        subscriber.dispose();
+
+        assertThat(received).containsExactlyElementsOf(repositoryJdbc.findAll().subList(0, 2));
+    }
+
+    @DisplayName("должен сохранять новую книгу с жанрами")
+    @Test
+    void shouldInsertNewBook() {
+        var savedBook = repositoryR2dbc.save(new Book(0, "R2dbcBook", dbAuthors.get(0),
+                List.of(dbGenres.get(2), dbGenres.get(4)))).block();
+
+        assertThat(savedBook).isNotNull().matches(book -> book.getId() > 0);
+        assertThat(repositoryJdbc.findById(savedBook.getId())).contains(savedBook);
+    }
+
+    @DisplayName("должен изменять книгу, добавляя и удаляя только изменившиеся жанры")
+    @Test
+    void shouldUpdateBook() {
+        var changedBook = new Book(1, "R2dbcEdited", dbAuthors.get(2), List.of(dbGenres.get(1), dbGenres.get(5)));
+
+        repositoryR2dbc.save(changedBook).block();
+
+        assertThat(repositoryJdbc.findById(1)).contains(changedBook);
+    }
+
+    @DisplayName("должен бросать исключение при изменении отсутствующей книги")
+    @Test
+    void shouldFailToUpdateMissingBook() {
+        var missingBook = new Book(10500, "Missing", dbAuthors.get(0), List.of(dbGenres.get(0)));
+
+        assertThatThrownBy(() -> repositoryR2dbc.save(missingBook).block())
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(repositoryJdbc.findAll()).hasSize(3);
+    }
+
+    @DisplayName("должен удалять книгу по id")
+    @Test
+    void shouldDeleteBook() {
+        repositoryR2dbc.deleteById(1).block();
+
+        assertThat(repositoryJdbc.findById(1)).isEmpty();
+        assertThat(repositoryJdbc.findAll()).hasSize(2);
+    }
+
+    private static void awaitReceived(List<Book> received, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && received.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        // gives the publisher a chance to emit more than it was asked for
+        Thread.sleep(50);
+    }
+}
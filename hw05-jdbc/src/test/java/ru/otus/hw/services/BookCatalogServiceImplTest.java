@@ -0,0 +1,108 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.context.TestPropertySource;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.JdbcBookCatalogRepository;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Сервис каталога книг ")
+@JdbcTest
+@Import({JdbcBookRepository.class, JdbcBookCatalogRepository.class, BookCatalogServiceImpl.class})
+@TestPropertySource(properties = "app.book-catalog.enabled=true")
+class BookCatalogServiceImplTest {
+
+    @Autowired
+    private BookCatalogServiceImpl catalogService;
+
+    @Autowired
+    private JdbcBookCatalogRepository catalogRepository;
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @DisplayName("должен заполнять каталог при старте и отдавать из него книги")
+    @Test
+    void shouldFillCatalogOnStartup() {
+        var expectedBooks = List.of(
+                new Book(1L, "BookTitle_1", new Author(1L, "Author_1"), List.of(new Genre(1L, "Genre_1"),
+                        new Genre(2L, "Genre_2"))),
+                new Book(2L, "BookTitle_2", new Author(2L, "Author_2"), List.of(new Genre(3L, "Genre_3"),
+                        new Genre(4L, "Genre_4"))),
+                new Book(3L, "BookTitle_3", new Author(3L, "Author_3"), List.of(new Genre(5L, "Genre_5"),
+                        new Genre(6L, "Genre_6"))));
+
+        assertThat(catalogRepository.findAll()).containsExactlyElementsOf(expectedBooks);
+        assertThat(bookRepository.findAll()).containsExactlyElementsOf(expectedBooks);
+        assertThat(bookRepository.findById(2L)).contains(expectedBooks.get(1));
+        assertThat(catalogService.check().isConsistent()).isTrue();
+    }
+
+    @DisplayName("должен обновлять каталог вместе с книгами")
+    @Test
+    void shouldKeepCatalogInSyncWithBooks() {
+        var newBook = bookRepository.save(new Book(0, "BookTitle_10500", new Author(1L, "Stale name"),
+                List.of(new Genre(6L, "Genre_6"), new Genre(2L, "Genre_2"))));
+        bookRepository.saveAll(List.of(
+                new Book(0, "BookTitle_10501", new Author(2L, "Author_2"), List.of(new Genre(1L, "Genre_1"))),
+                new Book(1L, "BookTitle_10502", new Author(3L, "Author_3"), List.of(new Genre(4L, "Genre_4")))));
+        bookRepository.deleteById(2L);
+
+        assertThat(catalogRepository.findById(newBook.getId())).get()
+                .isEqualTo(new Book(newBook.getId(), "BookTitle_10500", new Author(1L, "Author_1"),
+                        List.of(new Genre(2L, "Genre_2"), new Genre(6L, "Genre_6"))));
+        assertThat(catalogRepository.findById(1L)).get()
+                .extracting(Book::getTitle).isEqualTo("BookTitle_10502");
+        assertThat(catalogRepository.findById(2L)).isEmpty();
+
+        var checkResult = catalogService.check();
+        assertThat(checkResult.inconsistencies()).isEmpty();
+        assertThat(checkResult.booksCount()).isEqualTo(4);
+    }
+
+    @DisplayName("должен находить расхождения каталога с книгами и устранять их перестроением")
+    @Test
+    void shouldFindInconsistenciesAndFixThemByRebuild() {
+        jdbc.getJdbcOperations().update("update book_catalog set title = 'Stale title' where book_id = 1");
+        jdbc.getJdbcOperations().update("delete from book_catalog where book_id = 3");
+
+        assertThat(bookRepository.findById(1L)).get().extracting(Book::getTitle).isEqualTo("Stale title");
+        var checkResult = catalogService.check();
+        assertThat(checkResult.inconsistenciesCount()).isEqualTo(2);
+        assertThat(checkResult.inconsistencies())
+                .satisfiesExactly(
+                        inconsistency -> assertThat(inconsistency).startsWith("Catalog row").contains("Stale title"),
+                        inconsistency -> assertThat(inconsistency).isEqualTo("Book 3 is missing in the catalog"));
+
+        assertThat(catalogService.rebuild().booksCount()).isEqualTo(3);
+        assertThat(catalogService.check().isConsistent()).isTrue();
+        assertThat(bookRepository.findById(1L)).get().extracting(Book::getTitle).isEqualTo("BookTitle_1");
+    }
+
+    @DisplayName("должен перестраивать при старте каталог с устаревшими строками")
+    @Test
+    void shouldRebuildCatalogWithStaleRowsOnStartup() {
+        jdbc.getJdbcOperations().update("update book_catalog set author_full_name = 'Stale name' where book_id = 2");
+        jdbc.getJdbcOperations().update("update books set title = 'Changed title' where id = 3");
+
+        assertThat(catalogService.check().inconsistenciesCount()).isEqualTo(2);
+        catalogService.rebuildIfInconsistent();
+
+        assertThat(catalogService.check().isConsistent()).isTrue();
+        assertThat(catalogRepository.findById(3L)).get().extracting(Book::getTitle).isEqualTo("Changed title");
+    }
+}
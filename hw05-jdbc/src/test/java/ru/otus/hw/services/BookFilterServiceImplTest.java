@@ -0,0 +1,66 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.BookRepository;
+import ru.otus.hw.repositories.GenreRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@DisplayName("Сервис фильтрации книг по жанрам")
+@ExtendWith(MockitoExtension.class)
+class BookFilterServiceImplTest {
+
+    private static final Author AUTHOR = new Author(1L, "Author_1");
+
+    private static final Genre GENRE = new Genre(1L, "Genre_1");
+
+    private static final Genre DELETED_GENRE = new Genre(2L, "Genre_2");
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    private BookFilterServiceImpl filterService;
+
+    @BeforeEach
+    void setUp() {
+        filterService = new BookFilterServiceImpl(bookRepository, genreRepository, catalogSnapshotService);
+    }
+
+    @DisplayName("должен пропускать в фасетах жанры, удаленные после индексации книг")
+    @Test
+    void shouldSkipFacetsOfMissingGenres() {
+        var books = List.of(new Book(1L, "BookTitle_1", AUTHOR, List.of(GENRE, DELETED_GENRE)),
+                new Book(2L, "BookTitle_2", AUTHOR, List.of(GENRE)));
+        filterService.onBooksSaved(new BooksSavedEvent(books));
+        given(genreRepository.findAllByIds(any())).willReturn(List.of(GENRE));
+        given(catalogSnapshotService.findCurrent()).willReturn(Optional.empty());
+        given(bookRepository.findAllByIds(Set.of(1L, 2L))).willReturn(books);
+
+        var result = filterService.filterByGenres(Set.of(GENRE.getId()), Set.of(), Set.of(), 10);
+
+        assertThat(result.books()).containsExactlyElementsOf(books);
+        assertThat(result.genresFacets()).containsExactly(Map.entry(GENRE, 2));
+    }
+}
@@ -0,0 +1,245 @@
+package ru.otus.hw.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.otus.hw.exceptions.BookImportException;
+import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.AuthorRepository;
+import ru.otus.hw.repositories.BookRepository;
+import ru.otus.hw.repositories.GenreRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Сервис импорта книг")
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceImplTest {
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path dir;
+
+    private BookImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new BookImportServiceImpl(authorRepository, genreRepository, bookRepository,
+                new TransactionTemplate(transactionManager), new ObjectMapper());
+    }
+
+    @DisplayName("должен разбирать CSV, пропуская заголовок и пустые строки, и вставлять книги пачками")
+    @Test
+    void shouldImportCsvInChunks() throws IOException {
+        givenAuthorsAndGenres();
+        var file = write("books.csv", """
+                title,author_id,genre_ids
+                "Twenty Thousand Leagues, Under the Sea",1,1|2
+
+                BookTitle_2,2, 3
+                BookTitle_3,1,2|3
+                BookTitle_4,2,1
+                BookTitle_5,1,1
+                """);
+
+        var result = importService.importBooks(file, 2);
+
+        assertThat(result).matches(r -> r.booksCount() == 5 && r.chunksCount() == 3);
+        var chunks = capturedChunks(3);
+        assertThat(chunks).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(chunks.get(0).get(0)).isEqualTo(new Book(0, "Twenty Thousand Leagues, Under the Sea",
+                author(1), List.of(genre(1), genre(2))));
+        assertThat(chunks.get(0).get(1)).isEqualTo(new Book(0, "BookTitle_2", author(2), List.of(genre(3))));
+    }
+
+    @DisplayName("должен разбирать поля CSV в кавычках с запятыми, кавычками и переводами строк")
+    @Test
+    void shouldImportQuotedCsvFields() throws IOException {
+        givenAuthorsAndGenres();
+        var file = write("books.csv", """
+                "The ""Quoted"", Title",1,1
+                "Multi-line
+                Title",2,2|3
+                BookTitle_3,"1","3"
+                """);
+
+        var result = importService.importBooks(file, 10);
+
+        assertThat(result.booksCount()).isEqualTo(3);
+        assertThat(capturedChunks(1).get(0)).containsExactly(
+                new Book(0, "The \"Quoted\", Title", author(1), List.of(genre(1))),
+                new Book(0, "Multi-line\nTitle", author(2), List.of(genre(2), genre(3))),
+                new Book(0, "BookTitle_3", author(1), List.of(genre(3))));
+    }
+
+    @DisplayName("должен отклонять строку CSV с запятыми в названии без кавычек")
+    @Test
+    void shouldRejectUnquotedCommaInCsvTitle() throws IOException {
+        givenAuthorsAndGenres();
+        var file = write("books.csv", """
+                BookTitle_1,1,1
+                Twenty Thousand Leagues, Under the Sea,1,1|2
+                """);
+
+        assertThatThrownBy(() -> importService.importBooks(file, 10))
+                .isInstanceOf(BookImportException.class)
+                .hasMessageContaining("line 2")
+                .hasRootCauseMessage("Expected 3 fields, found 4");
+        verify(bookRepository, never()).insertAll(any());
+    }
+
+    @DisplayName("должен отклонять незакрытую кавычку в конце файла CSV")
+    @Test
+    void shouldRejectUnterminatedCsvQuote() throws IOException {
+        givenAuthorsAndGenres();
+        var file = write("books.csv", """
+                BookTitle_1,1,1
+                "BookTitle_2,2,2
+                """);
+
+        assertThatThrownBy(() -> importService.importBooks(file, 10))
+                .isInstanceOf(BookImportException.class)
+                .hasMessageContaining("line 2")
+                .hasMessageContaining("Unterminated quoted field");
+    }
+
+    @DisplayName("должен сообщать диапазон строк пачки, которую не удалось вставить")
+    @Test
+    void shouldReportLinesOfFailedChunk() throws IOException {
+        givenAuthorsAndGenres();
+        given(bookRepository.insertAll(any())).willAnswer(invocation -> invocation.getArgument(0))
+                .willThrow(new IllegalStateException("Insert failed"));
+        var file = write("books.csv", """
+                title,author_id,genre_ids
+                BookTitle_1,1,1
+                BookTitle_2,1,1
+
+                "Book
+                Title_3",1,1
+                BookTitle_4,1,1
+                BookTitle_5,1,1
+                """);
+
+        assertThatThrownBy(() -> importService.importBooks(file, 2))
+                .isInstanceOf(BookImportException.class)
+                .hasMessageContaining("lines 5-7")
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .extracting(e -> ((BookImportException) e).getImportedBooksCount())
+                .isEqualTo(2L);
+    }
+
+    @DisplayName("должен разбирать NDJSON и вставлять последнюю неполную пачку")
+    @Test
+    void shouldImportNdjson() throws IOException {
+        givenAuthorsAndGenres();
+        var file = write("books.ndjson", """
+                {"title": "BookTitle_1", "authorId": 1, "genresIds": [1, 3]}
+                {"title": "BookTitle_2", "authorId": 2, "genresIds": [2]}
+                """);
+
+        var result = importService.importBooks(file, 10);
+
+        assertThat(result).matches(r -> r.booksCount() == 2 && r.chunksCount() == 1);
+        assertThat(capturedChunks(1).get(0)).extracting(Book::getTitle)
+                .containsExactly("BookTitle_1", "BookTitle_2");
+    }
+
+    @DisplayName("должен сообщать номер некорректной строки и количество уже импортированных книг")
+    @Test
+    void shouldReportImportedBooksOnMalformedLine() throws IOException {
+        givenAuthorsAndGenres();
+        var lines = IntStream.rangeClosed(1, 3).mapToObj(i -> "BookTitle_%d,1,1".formatted(i)).toList();
+        var file = write("books.csv", String.join(System.lineSeparator(), lines) + """
+
+                BookTitle_4,not an id,1
+                """);
+
+        assertThatThrownBy(() -> importService.importBooks(file, 2))
+                .isInstanceOf(BookImportException.class)
+                .hasMessageContaining("line 4")
+                .hasRootCauseInstanceOf(NumberFormatException.class)
+                .extracting(e -> ((BookImportException) e).getImportedBooksCount())
+                .isEqualTo(2L);
+        verify(bookRepository, times(1)).insertAll(any());
+    }
+
+    @DisplayName("не должен вставлять книги с неизвестным автором")
+    @Test
+    void shouldRejectUnknownAuthor() throws IOException {
+        givenAuthorsAndGenres();
+        var file = write("books.csv", "BookTitle_1,100,1");
+
+        assertThatThrownBy(() -> importService.importBooks(file, 2))
+                .isInstanceOf(BookImportException.class)
+                .hasCauseInstanceOf(EntityNotFoundException.class)
+                .extracting(e -> ((BookImportException) e).getImportedBooksCount())
+                .isEqualTo(0L);
+        verify(bookRepository, never()).insertAll(any());
+    }
+
+    @DisplayName("должен отклонять файлы неподдерживаемого формата")
+    @Test
+    void shouldRejectUnsupportedFile() throws IOException {
+        var file = write("books.xml", "<books/>");
+
+        assertThatThrownBy(() -> importService.importBooks(file, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void givenAuthorsAndGenres() {
+        given(authorRepository.findAll()).willReturn(List.of(author(1), author(2)));
+        given(genreRepository.findAll()).willReturn(List.of(genre(1), genre(2), genre(3)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Book>> capturedChunks(int chunksCount) {
+        ArgumentCaptor<List<Book>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bookRepository, times(chunksCount)).insertAll(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        return Files.writeString(dir.resolve(fileName), content);
+    }
+
+    private static Author author(long id) {
+        return new Author(id, "Author_" + id);
+    }
+
+    private static Genre genre(long id) {
+        return new Genre(id, "Genre_" + id);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.JdbcAuthorRepository;
+import ru.otus.hw.repositories.JdbcBookRepository;
+import ru.otus.hw.repositories.JdbcGenreRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Нагрузочная проверка сервиса книг при конкурентных изменениях (-Dbenchmark=true)")
+@JdbcTest(properties = "app.catalog-snapshot.enabled=false")
+@Import({BookServiceImpl.class, JdbcAuthorRepository.class, JdbcGenreRepository.class, JdbcBookRepository.class,
+        CatalogSnapshotServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookServiceImplConcurrencyTest {
+
+    private static final int THREADS_COUNT = 8;
+
+    private static final int UPDATES_PER_THREAD = 50;
+
+    // Disjoint genres sets: a book ending up with genres of several sets has had its updates interleaved
+    private static final List<Set<Long>> GENRES_SETS = List.of(Set.of(1L, 2L), Set.of(3L, 4L), Set.of(5L, 6L));
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @DisplayName("должен оставлять согласованные название и жанры книги после конкурентных изменений")
+    @ParameterizedTest(name = "книг: {0}")
+    @ValueSource(ints = {1, 3})
+    void shouldKeepBooksConsistentOnConcurrentUpdates(int booksCount) throws Exception {
+        var executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        var start = new CountDownLatch(1);
+        var results = new ArrayList<Future<?>>();
+        for (int thread = 0; thread < THREADS_COUNT; thread++) {
+            var threadIndex = thread;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    var bookId = (long) (threadIndex + i) % booksCount + 1;
+                    var setIndex = (threadIndex * UPDATES_PER_THREAD + i) % GENRES_SETS.size();
+                    bookService.update(bookId, titleOf(setIndex), bookId, GENRES_SETS.get(setIndex));
+                }
+                return null;
+            }));
+        }
+
+        var startedAt = System.nanoTime();
+        start.countDown();
+        for (var result : results) {
+            result.get(1, TimeUnit.MINUTES);
+        }
+        var elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+        System.out.printf("%d books, %d threads: %.0f updates/s%n", booksCount, THREADS_COUNT,
+                THREADS_COUNT * UPDATES_PER_THREAD * 1e9 / elapsedNanos);
+
+        for (long bookId = 1; bookId <= booksCount; bookId++) {
+            var book = bookService.findById(bookId).orElseThrow();
+            var genresIds = book.getGenres().stream().map(Genre::getId).collect(Collectors.toSet());
+
+            assertThat(GENRES_SETS).contains(genresIds);
+            assertThat(book).extracting(Book::getTitle).isEqualTo(titleOf(GENRES_SETS.indexOf(genresIds)));
+        }
+    }
+
+    private static String titleOf(int genresSetIndex) {
+        return "BookTitle_set_" + genresSetIndex;
+    }
+}
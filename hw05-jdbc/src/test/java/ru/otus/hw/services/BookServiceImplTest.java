@@ -0,0 +1,160 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.otus.hw.index.CatalogSnapshot;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.AuthorRepository;
+import ru.otus.hw.repositories.BookRepository;
+import ru.otus.hw.repositories.GenreRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Сервис книг")
+@ExtendWith(MockitoExtension.class)
+class BookServiceImplTest {
+
+    private static final Book BOOK = new Book(1L, "BookTitle_1", new Author(1L, "Author_1"),
+            List.of(new Genre(1L, "Genre_1")));
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    private BookServiceImpl bookService;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookServiceImpl(authorRepository, genreRepository, bookRepository, catalogSnapshotService,
+                64);
+    }
+
+    @DisplayName("должен находить книгу по id в актуальном снимке каталога, не обращаясь к базе данных")
+    @Test
+    void shouldFindBookByIdInCurrentSnapshot() {
+        var builder = CatalogSnapshot.builder(0L, 0L);
+        builder.add(BOOK);
+        given(catalogSnapshotService.findCurrent()).willReturn(Optional.of(builder.build()));
+
+        assertThat(bookService.findById(1L)).contains(BOOK);
+        assertThat(bookService.findById(2L)).isEmpty();
+        verify(bookRepository, never()).findById(anyLong());
+    }
+
+    @DisplayName("должен находить книгу по id в базе данных, пока снимок каталога отстает от записей")
+    @Test
+    void shouldFindBookByIdInDatabaseWithoutCurrentSnapshot() {
+        given(catalogSnapshotService.findCurrent()).willReturn(Optional.empty());
+        given(bookRepository.findById(1L)).willReturn(Optional.of(BOOK));
+
+        assertThat(bookService.findById(1L)).contains(BOOK);
+    }
+
+    @DisplayName("должен выполнять изменения одной книги по очереди")
+    @Test
+    void shouldSerializeUpdatesOfSameBook() throws Exception {
+        givenBookReferences();
+        var detector = new OverlapDetector();
+        given(bookRepository.save(any())).willAnswer(invocation -> detector.call(invocation.getArgument(0)));
+
+        runConcurrently(() -> bookService.update(1L, "BookTitle_1'", 1L, Set.of(1L)),
+                () -> bookService.update(1L, "BookTitle_1''", 1L, Set.of(1L)));
+
+        assertThat(detector.maxInFlight).hasValue(1);
+    }
+
+    @DisplayName("должен выполнять удаление книг по id по очереди с изменением любой из них")
+    @Test
+    void shouldSerializeDeleteByIdsWithUpdateOfDeletedBook() throws Exception {
+        givenBookReferences();
+        var detector = new OverlapDetector();
+        given(bookRepository.save(any())).willAnswer(invocation -> detector.call(invocation.getArgument(0)));
+        given(bookRepository.deleteAllByIds(Set.of(2L, 1L))).willAnswer(invocation -> detector.call(List.of(1L)));
+
+        runConcurrently(() -> bookService.update(1L, "BookTitle_1'", 1L, Set.of(1L)),
+                () -> bookService.deleteAllByIds(Set.of(2L, 1L)));
+
+        assertThat(detector.maxInFlight).hasValue(1);
+    }
+
+    @DisplayName("должен выполнять замену жанра по очереди с изменением книги")
+    @Test
+    void shouldSerializeReplaceGenreWithUpdate() throws Exception {
+        givenBookReferences();
+        given(genreRepository.findAllByIds(Set.of(1L, 2L)))
+                .willReturn(List.of(new Genre(1L, "Genre_1"), new Genre(2L, "Genre_2")));
+        var detector = new OverlapDetector();
+        given(bookRepository.save(any())).willAnswer(invocation -> detector.call(invocation.getArgument(0)));
+        given(bookRepository.replaceGenre(1L, 2L)).willAnswer(invocation -> detector.call(List.of(1L)));
+
+        runConcurrently(() -> bookService.update(1L, "BookTitle_1'", 1L, Set.of(1L)),
+                () -> bookService.replaceGenre(1L, 2L));
+
+        assertThat(detector.maxInFlight).hasValue(1);
+    }
+
+    private void givenBookReferences() {
+        given(authorRepository.findById(1L)).willReturn(Optional.of(BOOK.getAuthor()));
+        given(genreRepository.findAllByIds(Set.of(1L))).willReturn(BOOK.getGenres());
+    }
+
+    private static void runConcurrently(Runnable first, Runnable second) throws Exception {
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var results = List.of(executor.submit(first), executor.submit(second));
+            for (var result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Stands for the repository writes: every call waits a little for the second one, which gets in only when
+    // the calls are not serialized, so an overlap is seen without relying on the timing of the threads
+    private static class OverlapDetector {
+
+        private static final long WAIT_MILLIS = 200;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private final CountDownLatch callersEntered = new CountDownLatch(2);
+
+        <T> T call(T result) throws InterruptedException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            callersEntered.countDown();
+            callersEntered.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            inFlight.decrementAndGet();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.otus.hw.index.CatalogSnapshot;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.BookChangeLogRepository;
+import ru.otus.hw.repositories.JdbcBookChangeLogRepository;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Сохранение колоночного снимка каталога книг в файл ")
+@JdbcTest
+@Import({JdbcBookRepository.class, JdbcBookChangeLogRepository.class, CatalogSnapshotServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CatalogSnapshotServiceImplPersistenceTest {
+
+    private static final Path SNAPSHOT_FILE = createTempDirectory().resolve("catalog.snapshot");
+
+    @Autowired
+    private CatalogSnapshotServiceImpl snapshotService;
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private BookChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private ObjectProvider<BookChangeLogRepository> changeLogProvider;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.catalog-snapshot.persistent", () -> "true");
+        registry.add("app.catalog-snapshot.file", SNAPSHOT_FILE::toString);
+    }
+
+    @DisplayName("должен восстанавливать снимок из файла и догонять изменения книг")
+    @Test
+    void shouldRestoreSnapshotAndCatchUpChanges() {
+        snapshotService.awaitRefresh();
+        snapshotService.persist();
+
+        var newBook = bookRepository.save(new Book(0, "BookTitle_10500", new Author(1L, "Author_1"),
+                List.of(new Genre(1L, "Genre_1"))));
+        bookRepository.save(new Book(2L, "BookTitle_10501", new Author(3L, "Author_3"),
+                List.of(new Genre(5L, "Genre_5"))));
+        bookRepository.deleteById(1L);
+
+        var restartedService = restartedService();
+        assertThat(restartedService.restore()).isTrue();
+        var restored = restartedService.findCurrent();
+        assertThat(restored).isPresent();
+        assertThat(restored.get().findAll()).containsExactlyElementsOf(bookRepository.findAll())
+                .extracting(Book::getId).containsExactly(2L, 3L, newBook.getId());
+        assertThat(restored.get().changeId()).isEqualTo(changeLogRepository.findState().lastChangeId());
+    }
+
+    @DisplayName("должен удалять из журнала только изменения, прочитанные снимком из базы данных")
+    @Test
+    void shouldPruneSavedChanges() {
+        bookRepository.deleteById(3L);
+        var snapshot = currentSnapshotOf(snapshotService);
+        snapshotService.persist();
+
+        var state = changeLogRepository.findState();
+        assertThat(state.prunedChangeId()).isEqualTo(snapshot.changeId()).isLessThan(state.lastChangeId());
+        assertThat(changeLogRepository.findChangedBooksIds(0)).containsExactly(3L);
+        var restartedService = restartedService();
+        assertThat(restartedService.restore()).isTrue();
+        assertThat(restartedService.findCurrent().orElseThrow().findById(3L)).isEmpty();
+    }
+
+    @DisplayName("должен удалять из журнала изменения, прочитанные перестроением снимка")
+    @Test
+    void shouldPruneChangesReadByRebuild() {
+        bookRepository.deleteById(3L);
+
+        var snapshot = currentSnapshotOf(restartedService());
+
+        var state = changeLogRepository.findState();
+        assertThat(state.prunedChangeId()).isEqualTo(snapshot.changeId()).isEqualTo(state.lastChangeId());
+        assertThat(changeLogRepository.findChangedBooksIds(0)).isEmpty();
+    }
+
+    @DisplayName("не должен восстанавливать снимок другой базы данных")
+    @Test
+    void shouldNotRestoreSnapshotOfAnotherDatabase() {
+        snapshotService.awaitRefresh();
+        snapshotService.persist();
+        jdbc.getJdbcOperations().update("update catalog_state set epoch = 'another'");
+
+        assertThat(restartedService().restore()).isFalse();
+    }
+
+    private CatalogSnapshotServiceImpl restartedService() {
+        return new CatalogSnapshotServiceImpl(bookRepository, transactionTemplate, changeLogProvider, true,
+                SNAPSHOT_FILE.toString());
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("catalog-snapshot");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CatalogSnapshot currentSnapshotOf(CatalogSnapshotServiceImpl service) {
+        service.awaitRefresh();
+        return service.findCurrent().orElseThrow();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.JdbcBookChangeLogRepository;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Each context is closed before the next one is started, so the database is closed with its last connection
+// and reopened from the file, as on a restart of the application. A title changed past the change log between
+// the starts is seen by a full rebuild only, which tells it from a restored snapshot
+@DisplayName("Восстановление колоночного снимка каталога книг после перезапуска ")
+class CatalogSnapshotServiceImplRestartTest {
+
+    private static final Book CHANGED_BOOK = new Book(2L, "BookTitle_10501", new Author(3L, "Author_3"),
+            List.of(new Genre(5L, "Genre_5")));
+
+    @TempDir
+    private Path directory;
+
+    @DisplayName("должен восстанавливать снимок файловой базы данных")
+    @Test
+    void shouldRestoreSnapshotOfFileDatabase() {
+        var url = "jdbc:h2:file:" + directory.resolve("library");
+        contextRunner(url).run(context -> {
+            context.getBean(JdbcBookRepository.class).save(CHANGED_BOOK);
+            context.getBean(CatalogSnapshotServiceImpl.class).awaitRefresh();
+        });
+        new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""))
+                .update("update books set title = 'Not logged' where id = 1");
+
+        contextRunner(url).run(context -> {
+            var snapshot = context.getBean(CatalogSnapshotServiceImpl.class).findCurrent().orElseThrow();
+            assertThat(snapshot.findById(1L)).get().extracting(Book::getTitle).isEqualTo("BookTitle_1");
+            assertThat(snapshot.findById(2L)).contains(CHANGED_BOOK);
+        });
+    }
+
+    @DisplayName("не должен восстанавливать снимок базы данных в памяти, созданной заново")
+    @Test
+    void shouldNotRestoreSnapshotOfInMemoryDatabase() {
+        var url = "jdbc:h2:mem:" + UUID.randomUUID();
+        contextRunner(url).run(context -> {
+            context.getBean(JdbcBookRepository.class).save(CHANGED_BOOK);
+            context.getBean(CatalogSnapshotServiceImpl.class).awaitRefresh();
+        });
+
+        contextRunner(url).run(context ->
+                assertThat(context.getBean(CatalogSnapshotServiceImpl.class).restore()).isFalse());
+    }
+
+    private ApplicationContextRunner contextRunner(String url) {
+        return new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                        DataSourceTransactionManagerAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+                        LiquibaseAutoConfiguration.class, TransactionAutoConfiguration.class))
+                .withUserConfiguration(JdbcBookRepository.class, JdbcBookChangeLogRepository.class,
+                        CatalogSnapshotServiceImpl.class)
+                .withPropertyValues("spring.datasource.url=" + url, "spring.datasource.username=sa",
+                        "app.catalog-snapshot.persistent=true",
+                        "app.catalog-snapshot.file=" + directory.resolve("catalog.snapshot"));
+    }
+}
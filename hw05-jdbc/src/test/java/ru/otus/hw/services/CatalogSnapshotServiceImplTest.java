@@ -0,0 +1,111 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.otus.hw.events.BooksDeletedEvent;
+import ru.otus.hw.events.BooksSavedEvent;
+import ru.otus.hw.index.CatalogSnapshot;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Сервис колоночного снимка каталога книг ")
+@JdbcTest
+@Import({JdbcBookRepository.class, CatalogSnapshotServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CatalogSnapshotServiceImplTest {
+
+    @Autowired
+    private CatalogSnapshotServiceImpl snapshotService;
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @DisplayName("должен строить снимок всех книг")
+    @Test
+    void shouldBuildSnapshotOfAllBooks() {
+        var snapshot = currentSnapshot();
+
+        assertThat(snapshot.findAll()).containsExactlyElementsOf(bookRepository.findAll());
+        assertThat(snapshotService.findCurrent()).containsSame(snapshot);
+    }
+
+    @DisplayName("должен обновлять снимок после изменения книг")
+    @Test
+    void shouldRebuildSnapshotOnWrites() {
+        var initialSnapshot = currentSnapshot();
+
+        var newBook = bookRepository.save(new Book(0, "BookTitle_10500", new Author(1L, "Author_1"),
+                List.of(new Genre(1L, "Genre_1"))));
+        assertThat(currentSnapshot().findById(newBook.getId())).contains(newBook);
+
+        bookRepository.deleteById(1L);
+        var snapshot = currentSnapshot();
+        assertThat(snapshot.findById(1L)).isEmpty();
+        assertThat(snapshot.findAll()).extracting(Book::getId).containsExactly(2L, 3L, newBook.getId());
+        assertThat(snapshot.version()).isGreaterThan(initialSnapshot.version());
+    }
+
+    @DisplayName("должен применять к снимку только записанные книги, не перечитывая каталог")
+    @Test
+    void shouldApplyWrittenBooksOnly() {
+        var initialSnapshot = currentSnapshot();
+        jdbc.update("update books set title = 'Unseen' where id = 2", Map.of());
+
+        var updatedBook = new Book(1L, "BookTitle_1'", new Author(2L, "Author_2"), List.of(new Genre(3L, "Genre_3")));
+        bookRepository.save(updatedBook);
+        var snapshot = currentSnapshot();
+
+        assertThat(snapshot.findById(1L)).contains(updatedBook);
+        assertThat(snapshot.findById(2L)).isEqualTo(initialSnapshot.findById(2L));
+    }
+
+    @DisplayName("должен применять записи одной книги в порядке их фиксации")
+    @Test
+    void shouldApplyWritesOfBookInCommitOrder() {
+        var initialSnapshot = currentSnapshot();
+        var book = initialSnapshot.findById(3L).orElseThrow();
+        var renamedBook = new Book(3L, "BookTitle_3'", book.getAuthor(), book.getGenres());
+
+        snapshotService.onBooksDeleted(new BooksDeletedEvent(List.of(3L)));
+        snapshotService.onBooksSaved(new BooksSavedEvent(List.of(renamedBook)));
+        snapshotService.onBooksDeleted(new BooksDeletedEvent(List.of(2L)));
+        var snapshot = currentSnapshot();
+
+        assertThat(snapshot.findAll()).containsExactly(initialSnapshot.findById(1L).orElseThrow(), renamedBook);
+        assertThat(snapshot.version()).isEqualTo(initialSnapshot.version() + 3);
+    }
+
+    @DisplayName("не должен отдавать снимок, отстающий от записей")
+    @Test
+    void shouldNotReturnStaleSnapshot() {
+        var initialSnapshot = currentSnapshot();
+        snapshotService.onBooksDeleted(new BooksDeletedEvent(List.of()));
+
+        assertThat(snapshotService.findCurrent()).isNotEqualTo(Optional.of(initialSnapshot));
+        assertThat(currentSnapshot().version()).isEqualTo(initialSnapshot.version() + 1);
+    }
+
+    private CatalogSnapshot currentSnapshot() {
+        snapshotService.awaitRefresh();
+        return snapshotService.findCurrent().orElseThrow();
+    }
+}
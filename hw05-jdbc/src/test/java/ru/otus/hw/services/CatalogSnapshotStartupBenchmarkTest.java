@@ -0,0 +1,136 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.otus.hw.index.CatalogSnapshot;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.repositories.BookChangeLogRepository;
+import ru.otus.hw.repositories.JdbcBookChangeLogRepository;
+import ru.otus.hw.repositories.JdbcBookRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры прогрева колоночного снимка каталога при старте (-Dbenchmark=true)")
+@JdbcTest
+@Import({JdbcBookRepository.class, JdbcBookChangeLogRepository.class, CatalogSnapshotServiceImpl.class})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CatalogSnapshotStartupBenchmarkTest {
+
+    private static final Path SNAPSHOT_FILE = createTempDirectory().resolve("catalog.snapshot");
+
+    private static final int BOOKS_COUNT = 500_000;
+
+    private static final int GENRES_PER_BOOK = 2;
+
+    private static final int INSERT_CHUNK_SIZE = 50_000;
+
+    private static final int CHANGED_BOOKS_COUNT = 1_000;
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @Autowired
+    private ObjectProvider<BookChangeLogRepository> changeLogProvider;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.catalog-snapshot.persistent", () -> "true");
+        registry.add("app.catalog-snapshot.file", SNAPSHOT_FILE::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (int from = 0; from < BOOKS_COUNT; from += INSERT_CHUNK_SIZE) {
+            var books = IntStream.range(from, from + INSERT_CHUNK_SIZE)
+                    .mapToObj(i -> new MapSqlParameterSource(Map.of("title", "Bench_" + i, "author_id", i % 3 + 1)))
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbc.batchUpdate("insert into books(title, author_id) values (:title, :author_id)", books);
+        }
+        var booksIds = jdbc.getJdbcOperations().queryForList("select id from books where id > 3", Long.class);
+        for (int from = 0; from < booksIds.size(); from += INSERT_CHUNK_SIZE) {
+            var relations = booksIds.subList(from, Math.min(from + INSERT_CHUNK_SIZE, booksIds.size())).stream()
+                    .flatMap(bookId -> IntStream.range(0, GENRES_PER_BOOK).mapToObj(i -> new MapSqlParameterSource(
+                            Map.of("book_id", bookId, "genre_id", (bookId + i) % 6 + 1))))
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbc.batchUpdate("insert into books_genres(book_id, genre_id) values (:book_id, :genre_id)", relations);
+        }
+    }
+
+    @DisplayName("прогрев с сохраненным снимком и без него")
+    @Test
+    void compareWarmUpWithAndWithoutSavedSnapshot() throws IOException {
+        var coldService = restartedService();
+        var startedAt = System.nanoTime();
+        var rebuilt = currentSnapshotOf(coldService);
+        var rebuildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        startedAt = System.nanoTime();
+        coldService.persist();
+        var persistMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        var changedBooks = bookRepository.findPage(BOOKS_COUNT / 2, CHANGED_BOOKS_COUNT);
+        changedBooks.forEach(book -> book.setTitle(book.getTitle() + "'"));
+        bookRepository.saveAll(changedBooks);
+
+        var warmService = restartedService();
+        startedAt = System.nanoTime();
+        assertThat(warmService.restore()).isTrue();
+        var restored = warmService.findCurrent().orElseThrow();
+        var restoreMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertThat(restored.size()).isEqualTo(rebuilt.size());
+        assertThat(restored.findById(changedBooks.get(0).getId()))
+                .get().extracting(Book::getTitle).isEqualTo(changedBooks.get(0).getTitle());
+
+        System.out.printf("%d books: rebuild from the database %d ms; snapshot file %d KB saved in %d ms, "
+                        + "restored with %d changed books in %d ms%n", rebuilt.size(), rebuildMillis,
+                Files.size(SNAPSHOT_FILE) / 1024, persistMillis, CHANGED_BOOKS_COUNT, restoreMillis);
+    }
+
+    private CatalogSnapshotServiceImpl restartedService() {
+        return new CatalogSnapshotServiceImpl(bookRepository, transactionTemplate, changeLogProvider, true,
+                SNAPSHOT_FILE.toString());
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("catalog-snapshot-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CatalogSnapshot currentSnapshotOf(CatalogSnapshotServiceImpl service) {
+        service.awaitRefresh();
+        return service.findCurrent().orElseThrow();
+    }
+}
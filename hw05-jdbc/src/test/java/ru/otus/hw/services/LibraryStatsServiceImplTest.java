@@ -0,0 +1,102 @@
+package ru.otus.hw.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
+import ru.otus.hw.repositories.JdbcBookRepository;
+import ru.otus.hw.repositories.JdbcBookStatsRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("Сервис статистики библиотеки ")
+@JdbcTest
+@Import({LibraryStatsServiceImpl.class, JdbcBookStatsRepository.class, JdbcBookRepository.class})
+class LibraryStatsServiceImplTest {
+
+    private static final Duration UNLIMITED_BUDGET = Duration.ofMinutes(1);
+
+    private static final int ADDED_BOOKS_COUNT = 5_000;
+
+    @Autowired
+    private LibraryStatsServiceImpl statsService;
+
+    @Autowired
+    private JdbcBookRepository bookRepository;
+
+    @DisplayName("должен считать книги по авторам и жанрам и совместные жанры точно")
+    @Test
+    void shouldCollectExactStats() {
+        bookRepository.save(new Book(0, "BookTitle_10500", author(1), List.of(genre(1), genre(2), genre(3))));
+
+        var stats = statsService.collect(2, UNLIMITED_BUDGET);
+
+        assertThat(stats.booksCount()).isEqualTo(4);
+        assertThat(stats.booksPerAuthor()).containsExactly(entry(author(1), 2L), entry(author(2), 1L),
+                entry(author(3), 1L));
+        assertThat(stats.topAuthors()).containsExactly(entry(author(1), 2L), entry(author(2), 1L));
+        assertThat(stats.booksPerGenre()).containsExactly(entry(genre(1), 2L), entry(genre(2), 2L),
+                entry(genre(3), 2L), entry(genre(4), 1L), entry(genre(5), 1L), entry(genre(6), 1L));
+        assertThat(stats.genresCoOccurrence()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                new GenresPair(genre(1), genre(2)), 2L,
+                new GenresPair(genre(1), genre(3)), 1L,
+                new GenresPair(genre(2), genre(3)), 1L,
+                new GenresPair(genre(3), genre(4)), 1L,
+                new GenresPair(genre(5), genre(6)), 1L));
+        assertThat(stats.genresCoOccurrence().values()).first().isEqualTo(2L);
+        assertThat(stats.isEstimated()).isFalse();
+    }
+
+    @DisplayName("должен оценивать совместные жанры по части книг, если не укладывается в бюджет времени")
+    @Test
+    void shouldEstimateCoOccurrenceWhenBudgetIsSpent() {
+        bookRepository.insertAll(IntStream.range(0, ADDED_BOOKS_COUNT)
+                .mapToObj(i -> new Book(0, "Added_" + i, author(i % 3 + 1), List.of(genre(1), genre(2))))
+                .toList());
+
+        var stats = statsService.collect(3, Duration.ofNanos(1));
+
+        assertThat(stats.isEstimated()).isTrue();
+        assertThat(stats.coOccurrenceCoverage()).isLessThan(0.5);
+        assertThat(stats.booksPerGenre()).containsEntry(genre(1), ADDED_BOOKS_COUNT + 1L);
+        assertThat(stats.genresCoOccurrence().get(new GenresPair(genre(1), genre(2))).doubleValue())
+                .isCloseTo(ADDED_BOOKS_COUNT + 1, within(ADDED_BOOKS_COUNT * 0.01));
+    }
+
+    @DisplayName("должен оценивать совместные жанры по равномерной выборке книг, а не по первым id")
+    @Test
+    void shouldEstimateCoOccurrenceFromUniformSample() {
+        bookRepository.insertAll(IntStream.range(0, ADDED_BOOKS_COUNT)
+                .mapToObj(i -> i < ADDED_BOOKS_COUNT / 2
+                        ? new Book(0, "Older_" + i, author(1), List.of(genre(1), genre(2)))
+                        : new Book(0, "Newer_" + i, author(2), List.of(genre(3), genre(4))))
+                .toList());
+
+        var stats = statsService.collect(3, Duration.ofNanos(1));
+
+        assertThat(stats.coOccurrenceCoverage()).isLessThan(0.5);
+        assertThat(stats.genresCoOccurrence().get(new GenresPair(genre(3), genre(4))).doubleValue())
+                .isCloseTo(ADDED_BOOKS_COUNT / 2.0, within(ADDED_BOOKS_COUNT * 0.1));
+        assertThat(stats.genresCoOccurrence().get(new GenresPair(genre(1), genre(2))).doubleValue())
+                .isCloseTo(ADDED_BOOKS_COUNT / 2.0, within(ADDED_BOOKS_COUNT * 0.1));
+    }
+
+    private static Author author(long id) {
+        return new Author(id, "Author_" + id);
+    }
+
+    private static Genre genre(long id) {
+        return new Genre(id, "Genre_" + id);
+    }
+}
@@ -3,6 +3,7 @@ package ru.otus.hw.commands;
 import lombok.RequiredArgsConstructor;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
 import ru.otus.hw.converters.BookConverter;
 import ru.otus.hw.services.BookService;
 
@@ -18,11 +19,36 @@ public class BookCommands {
 
     private final BookConverter bookConverter;
 
-    @ShellMethod(value = "Find all books", key = "ab")
-    public String findAllBooks() {
-        return bookService.findAll().stream()
+    // ab --after-id 20 --limit 20
+    @ShellMethod(value = "Find a page of books following the given id", key = "ab")
+    public String findAllBooks(@ShellOption(value = "--after-id", defaultValue = "0") long afterId,
+                               @ShellOption(value = "--limit", defaultValue = "20") int limit) {
+        var books = bookService.findPage(afterId, limit);
+        var page = books.stream()
                 .map(bookConverter::dtoToString)
                 .collect(Collectors.joining("," + System.lineSeparator()));
+        if (books.size() < limit) {
+            return page;
+        }
+        var lastId = books.get(books.size() - 1).id();
+        return page + System.lineSeparator()
+                + "Next page: ab --after-id %d --limit %d".formatted(lastId, limit);
+    }
+
+    // abcc --after-id 20 --limit 20
+    @ShellMethod(value = "Find a page of books with their comments counts", key = "abcc")
+    public String findBooksCommentsCounts(@ShellOption(value = "--after-id", defaultValue = "0") long afterId,
+                                          @ShellOption(value = "--limit", defaultValue = "20") int limit) {
+        var books = bookService.findCommentsCountsPage(afterId, limit);
+        var page = books.stream()
+                .map(bookConverter::commentsCountToString)
+                .collect(Collectors.joining("," + System.lineSeparator()));
+        if (books.size() < limit) {
+            return page;
+        }
+        var lastId = books.get(books.size() - 1).id();
+        return page + System.lineSeparator()
+                + "Next page: abcc --after-id %d --limit %d".formatted(lastId, limit);
     }
 
     @ShellMethod(value = "Find book by id", key = "bbid")
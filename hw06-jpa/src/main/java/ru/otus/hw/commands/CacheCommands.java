@@ -0,0 +1,30 @@
+package ru.otus.hw.commands;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import ru.otus.hw.services.CacheService;
+
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class CacheCommands {
+
+    private final CacheService cacheService;
+
+    @ShellMethod(value = "Show second-level and query caches statistics", key = "cs")
+    public String cachesStats() {
+        return cacheService.stats().stream()
+                .map(stats -> "%s: %d hits, %d misses, hit ratio %.2f, %d puts%s".formatted(stats.name(),
+                        stats.hits(), stats.misses(), stats.hitRatio(), stats.puts(),
+                        stats.size() < 0 ? "" : ", %d entries".formatted(stats.size())))
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    @ShellMethod(value = "Evict all cached entities and queries", key = "cev")
+    public String evictCaches() {
+        cacheService.evictAll();
+        return "Caches are evicted";
+    }
+}
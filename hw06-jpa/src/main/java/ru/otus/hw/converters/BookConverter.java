@@ -2,6 +2,7 @@ package ru.otus.hw.converters;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.otus.hw.dto.BookCommentsCountDto;
 import ru.otus.hw.dto.BookDto;
 import ru.otus.hw.models.Book;
 
@@ -22,6 +23,10 @@ public class BookConverter {
         );
     }
 
+    public String commentsCountToString(BookCommentsCountDto book) {
+        return "Id: %d, title: %s, comments: %d".formatted(book.id(), book.title(), book.commentsCount());
+    }
+
     public String dtoToString(BookDto book) {
 /*        var genresString = book.genres().stream()
                 .map(genreConverter::dtoToString)
@@ -0,0 +1,9 @@
+package ru.otus.hw.dto;
+
+public record CacheStatsDto(String name, long hits, long misses, long puts, long size) {
+
+    public double hitRatio() {
+        var requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
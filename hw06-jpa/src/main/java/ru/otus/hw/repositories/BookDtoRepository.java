@@ -0,0 +1,15 @@
+package ru.otus.hw.repositories;
+
+import ru.otus.hw.dto.BookCommentsCountDto;
+import ru.otus.hw.dto.BookDto;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BookDtoRepository {
+    Optional<BookDto> findById(long id);
+
+    List<BookDto> findAll();
+
+    List<BookCommentsCountDto> findCommentsCountsPage(long afterId, int limit);
+}
@@ -10,7 +10,11 @@ public interface BookRepository {
 
     List<Book> findAll();
 
+    List<Book> findPage(long afterId, int limit);
+
     Book save(Book book);
 
+    List<Book> saveAll(List<Book> books);
+
     void deleteById(long id);
 }
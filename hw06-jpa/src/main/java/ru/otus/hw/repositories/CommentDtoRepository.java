@@ -0,0 +1,12 @@
+package ru.otus.hw.repositories;
+
+import ru.otus.hw.dto.CommentDto;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CommentDtoRepository {
+    Optional<CommentDto> findById(long id);
+
+    List<CommentDto> findByBookId(long bookId);
+}
@@ -12,5 +12,7 @@ public interface CommentRepository {
 
     Comment save(Comment comment);
 
+    List<Comment> saveAll(List<Comment> comments);
+
     void deleteById(long id);
 }
@@ -2,11 +2,13 @@ package ru.otus.hw.repositories;
 
 import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import ru.otus.hw.models.Author;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 @AllArgsConstructor
@@ -15,7 +17,9 @@ public class JpaAuthorRepository implements AuthorRepository {
 
     @Override
     public List<Author> findAll() {
-        return em.createQuery("select a from Author a", Author.class).getResultList();
+        return em.createQuery("select a from Author a", Author.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
     }
 
     @Override
@@ -23,4 +27,11 @@ public class JpaAuthorRepository implements AuthorRepository {
         return Optional.ofNullable(
                 em.find(Author.class, id));
     }
+
+    @Override
+    public List<Author> findAllByIds(Set<Long> ids) {
+        return em.createQuery("select a from Author a where a.id in (:ids)", Author.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
 }
@@ -0,0 +1,93 @@
+package ru.otus.hw.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.dto.AuthorDto;
+import ru.otus.hw.dto.BookCommentsCountDto;
+import ru.otus.hw.dto.BookDto;
+import ru.otus.hw.dto.GenreDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+// Read-only counterpart of JpaBookRepository: books are selected as tuples and assembled into DTOs directly,
+// so nothing is put into the persistence context. Genres of the books are selected by a second query
+@Repository
+@RequiredArgsConstructor
+public class JpaBookDtoRepository implements BookDtoRepository {
+    private static final String SELECT_BOOKS = """
+            select b.id, b.title, a.id, a.fullName
+              from Book b
+              join b.author a
+            """;
+
+    private static final String SELECT_GENRES = """
+            select b.id, g.id, g.name
+              from Book b
+              join b.genres g
+            """;
+
+    private final EntityManager em;
+
+    @Override
+    public Optional<BookDto> findById(long id) {
+        var books = em.createQuery(SELECT_BOOKS + "where b.id = :id", Tuple.class)
+                .setParameter("id", id)
+                .getResultList();
+        if (books.isEmpty()) {
+            return Optional.empty();
+        }
+        var genres = em.createQuery(SELECT_GENRES + "where b.id = :id order by g.id", Tuple.class)
+                .setParameter("id", id)
+                .getResultList();
+        return Optional.of(toBooks(books, genres).get(0));
+    }
+
+    @Override
+    public List<BookDto> findAll() {
+        var books = em.createQuery(SELECT_BOOKS + "order by b.id", Tuple.class).getResultList();
+        var genres = em.createQuery(SELECT_GENRES + "order by b.id, g.id", Tuple.class).getResultList();
+        return toBooks(books, genres);
+    }
+
+    // Comments are only counted by the grouping query, books without comments are counted as zero
+    @Override
+    public List<BookCommentsCountDto> findCommentsCountsPage(long afterId, int limit) {
+        return em.createQuery("""
+                        select new ru.otus.hw.dto.BookCommentsCountDto(b.id, b.title, count(c.id))
+                          from Book b
+                          left join Comment c on c.book = b
+                         where b.id > :after_id
+                         group by b.id, b.title
+                         order by b.id
+                        """, BookCommentsCountDto.class)
+                .setParameter("after_id", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Authors and genres shared by several books are mapped to the same DTO instances
+    private static List<BookDto> toBooks(List<Tuple> books, List<Tuple> genres) {
+        var genresById = new HashMap<Long, GenreDto>();
+        var genresByBookId = new HashMap<Long, List<GenreDto>>();
+        for (var genre : genres) {
+            var genreDto = genresById.computeIfAbsent(genre.get(1, Long.class),
+                    id -> new GenreDto(id, genre.get(2, String.class)));
+            genresByBookId.computeIfAbsent(genre.get(0, Long.class), id -> new ArrayList<>()).add(genreDto);
+        }
+        var authorsById = new HashMap<Long, AuthorDto>();
+        var result = new ArrayList<BookDto>(books.size());
+        for (var book : books) {
+            var bookId = book.get(0, Long.class);
+            var author = authorsById.computeIfAbsent(book.get(2, Long.class),
+                    id -> new AuthorDto(id, book.get(3, String.class)));
+            result.add(new BookDto(bookId, book.get(1, String.class), author,
+                    genresByBookId.getOrDefault(bookId, List.of())));
+        }
+        return result;
+    }
+}
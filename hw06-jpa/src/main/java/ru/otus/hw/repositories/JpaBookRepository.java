@@ -4,9 +4,11 @@ import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.springframework.stereotype.Repository;
 import ru.otus.hw.models.Book;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,6 +35,24 @@ public class JpaBookRepository implements BookRepository {
                 .getResultList();
     }
 
+    // A collection fetch can not be limited by the database, Hibernate would cut the page in memory. So the page
+    // of ids is selected by the keyset first, and then only these books are fetched with authors and genres
+    @Override
+    public List<Book> findPage(long afterId, int limit) {
+        var ids = em.createQuery("select b.id from Book b where b.id > :after_id order by b.id", Long.class)
+                .setParameter("after_id", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        EntityGraph<?> entityGraph = em.getEntityGraph("book-author-genres-entity-graph");
+        return em.createQuery("select b from Book b where b.id in (:ids) order by b.id", Book.class)
+                .setParameter("ids", ids)
+                .setHint(FETCH.getKey(), entityGraph)
+                .getResultList();
+    }
+
     @Override
     public Book save(Book book) {
         if (book.getId() == 0) {
@@ -42,6 +62,23 @@ public class JpaBookRepository implements BookRepository {
         return em.merge(book);
     }
 
+    // The persistence context is flushed and cleared after every JDBC batch, so the inserts go out in batches
+    // and the context does not grow with the number of books. Entities loaded before the call get detached
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        var batchSize = Math.max(em.unwrap(SharedSessionContractImplementor.class).getConfiguredJdbcBatchSize(), 1);
+        var savedBooks = new ArrayList<Book>(books.size());
+        for (var book : books) {
+            savedBooks.add(save(book));
+            if (savedBooks.size() % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        return savedBooks;
+    }
+
     @Override
     public void deleteById(long id) {
         try {
@@ -0,0 +1,33 @@
+package ru.otus.hw.repositories;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import ru.otus.hw.dto.CommentDto;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class JpaCommentDtoRepository implements CommentDtoRepository {
+    private static final String SELECT_COMMENTS = "select new ru.otus.hw.dto.CommentDto(c.id, c.book.id, c.text) "
+            + "from Comment c ";
+
+    private final EntityManager em;
+
+    @Override
+    public Optional<CommentDto> findById(long id) {
+        return em.createQuery(SELECT_COMMENTS + "where c.id = :id", CommentDto.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public List<CommentDto> findByBookId(long bookId) {
+        return em.createQuery(SELECT_COMMENTS + "where c.book.id = :book_id order by c.id", CommentDto.class)
+                .setParameter("book_id", bookId)
+                .getResultList();
+    }
+}
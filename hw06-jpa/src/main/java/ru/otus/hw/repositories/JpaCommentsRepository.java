@@ -2,9 +2,11 @@ package ru.otus.hw.repositories;
 
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.springframework.stereotype.Repository;
 import ru.otus.hw.models.Comment;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +36,22 @@ public class JpaCommentsRepository implements CommentRepository {
         return em.merge(comment);
     }
 
+    // Flushes and clears the persistence context after every JDBC batch, same as books saving
+    @Override
+    public List<Comment> saveAll(List<Comment> comments) {
+        var batchSize = Math.max(em.unwrap(SharedSessionContractImplementor.class).getConfiguredJdbcBatchSize(), 1);
+        var savedComments = new ArrayList<Comment>(comments.size());
+        for (var comment : comments) {
+            savedComments.add(save(comment));
+            if (savedComments.size() % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        return savedComments;
+    }
+
     @Override
     public void deleteById(long id) {
         var comment = em.find(Comment.class, id);
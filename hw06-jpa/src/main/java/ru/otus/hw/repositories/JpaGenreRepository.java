@@ -2,11 +2,16 @@ package ru.otus.hw.repositories;
 
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import ru.otus.hw.models.Genre;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
@@ -15,13 +20,20 @@ public class JpaGenreRepository implements GenreRepository {
 
     @Override
     public List<Genre> findAll() {
-        return em.createQuery("select g from Genre g", Genre.class).getResultList();
+        return em.createQuery("select g from Genre g", Genre.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
     }
 
+    // Genres found in the second-level cache are not queried, so repeated lookups of the same ids cost no SQL
     @Override
     public List<Genre> findAllByIds(Set<Long> ids) {
-        return em.createQuery("select g from Genre g where g.id in (:ids)", Genre.class)
-                .setParameter("ids", ids)
-                .getResultList();
+        return em.unwrap(Session.class)
+                .byMultipleIds(Genre.class)
+                .with(CacheMode.NORMAL)
+                .multiLoad(ids.stream().sorted().toList())
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
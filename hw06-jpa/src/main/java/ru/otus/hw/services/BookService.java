@@ -1,6 +1,8 @@
 package ru.otus.hw.services;
 
+import ru.otus.hw.dto.BookCommentsCountDto;
 import ru.otus.hw.dto.BookDto;
+import ru.otus.hw.dto.NewBookDto;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -10,8 +12,14 @@ public interface BookService {
 
     Optional<BookDto> findById(long id);
 
+    List<BookDto> findPage(long afterId, int limit);
+
+    List<BookCommentsCountDto> findCommentsCountsPage(long afterId, int limit);
+
     BookDto insert(String title, long authorId, Set<Long> genresIds);
 
+    List<BookDto> insertAll(List<NewBookDto> books);
+
     BookDto update(long id, String title, long authorId, Set<Long> genresIds);
 
     void deleteById(long id);
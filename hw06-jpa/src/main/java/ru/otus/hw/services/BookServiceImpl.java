@@ -5,16 +5,24 @@ import lombok.val;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.otus.hw.converters.BookConverter;
+import ru.otus.hw.dto.BookCommentsCountDto;
 import ru.otus.hw.dto.BookDto;
+import ru.otus.hw.dto.NewBookDto;
 import ru.otus.hw.exceptions.EntityNotFoundException;
+import ru.otus.hw.models.Author;
 import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Genre;
 import ru.otus.hw.repositories.AuthorRepository;
+import ru.otus.hw.repositories.BookDtoRepository;
 import ru.otus.hw.repositories.BookRepository;
 import ru.otus.hw.repositories.GenreRepository;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.springframework.util.CollectionUtils.isEmpty;
 
@@ -22,18 +30,36 @@ import static org.springframework.util.CollectionUtils.isEmpty;
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
+    // Keeps a page, and the ids list of its genres query, bounded whatever limit is requested
+    private static final int MAX_PAGE_LIMIT = 1000;
+
     private final BookRepository bookRepository;
 
     private final AuthorRepository authorRepository;
 
     private final GenreRepository genreRepository;
 
+    private final BookDtoRepository bookDtoRepository;
+
     private final BookConverter bookConverter;
 
     @Transactional(readOnly = true)
     @Override
     public List<BookDto> findAll() {
-        return bookRepository.findAll()
+        return bookDtoRepository.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<BookDto> findById(long id) {
+        return bookDtoRepository.findById(id);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookDto> findPage(long afterId, int limit) {
+        checkPageLimit(limit);
+        return bookRepository.findPage(afterId, limit)
                 .stream()
                 .map(bookConverter::bookToDto)
                 .toList();
@@ -41,8 +67,9 @@ public class BookServiceImpl implements BookService {
 
     @Transactional(readOnly = true)
     @Override
-    public Optional<BookDto> findById(long id) {
-        return bookRepository.findById(id).map(bookConverter::bookToDto);
+    public List<BookCommentsCountDto> findCommentsCountsPage(long afterId, int limit) {
+        checkPageLimit(limit);
+        return bookDtoRepository.findCommentsCountsPage(afterId, limit);
     }
 
     @Transactional
@@ -53,6 +80,46 @@ public class BookServiceImpl implements BookService {
         return bookConverter.bookToDto(bookRepository.save(book));
     }
 
+    // Authors and genres of all the books are loaded by two queries, the books are inserted in JDBC batches
+    @Transactional
+    @Override
+    public List<BookDto> insertAll(List<NewBookDto> newBooks) {
+        if (isEmpty(newBooks)) {
+            return List.of();
+        }
+        for (val newBook : newBooks) {
+            if (isEmpty(newBook.genresIds())) {
+                throw new IllegalArgumentException(
+                        "Genres ids of book %s must not be empty".formatted(newBook.title()));
+            }
+        }
+        val authorsIds = newBooks.stream().map(NewBookDto::authorId).collect(Collectors.toSet());
+        val authorsById = authorRepository.findAllByIds(authorsIds).stream()
+                .collect(Collectors.toMap(Author::getId, Function.identity()));
+        if (authorsById.size() != authorsIds.size()) {
+            val missingIds = new HashSet<>(authorsIds);
+            missingIds.removeAll(authorsById.keySet());
+            throw new EntityNotFoundException("Authors with ids %s not found".formatted(missingIds));
+        }
+        val genresIds = new HashSet<Long>();
+        newBooks.forEach(book -> genresIds.addAll(book.genresIds()));
+        val genresById = genreRepository.findAllByIds(genresIds).stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        if (genresById.size() != genresIds.size()) {
+            val missingIds = new HashSet<>(genresIds);
+            missingIds.removeAll(genresById.keySet());
+            throw new EntityNotFoundException("Genres with ids %s not found".formatted(missingIds));
+        }
+
+        val books = newBooks.stream()
+                .map(newBook -> new Book(0, newBook.title(), authorsById.get(newBook.authorId()),
+                        newBook.genresIds().stream().map(genresById::get).collect(Collectors.toList())))
+                .toList();
+        return bookRepository.saveAll(books).stream()
+                .map(bookConverter::bookToDto)
+                .toList();
+    }
+
     @Transactional
     @Override
     public BookDto update(long id, String title, long authorId, Set<Long> genresIds) {
@@ -82,4 +149,10 @@ public class BookServiceImpl implements BookService {
     public void deleteById(long id) {
         bookRepository.deleteById(id);
     }
+
+    private static void checkPageLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Page limit must be between 1 and %d".formatted(MAX_PAGE_LIMIT));
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package ru.otus.hw.services;
+
+import ru.otus.hw.dto.CacheStatsDto;
+
+import java.util.List;
+
+public interface CacheService {
+    List<CacheStatsDto> stats();
+
+    void evictAll();
+}
@@ -0,0 +1,37 @@
+package ru.otus.hw.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Service;
+import ru.otus.hw.dto.CacheStatsDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+@RequiredArgsConstructor
+@Service
+public class CacheServiceImpl implements CacheService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Entity regions and the query results region. JCache does not expose entries counts, they are shown if known
+    @Override
+    public List<CacheStatsDto> stats() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(statistics::getCacheRegionStatistics)
+                .filter(Objects::nonNull)
+                .map(region -> new CacheStatsDto(region.getRegionName(), region.getHitCount(),
+                        region.getMissCount(), region.getPutCount(), region.getElementCountInMemory()))
+                .toList();
+    }
+
+    @Override
+    public void evictAll() {
+        var cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictAllRegions();
+    }
+}
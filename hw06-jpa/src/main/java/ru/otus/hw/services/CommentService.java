@@ -12,6 +12,8 @@ public interface CommentService {
 
     CommentDto insert(long bookId, String text);
 
+    List<CommentDto> insertAll(long bookId, List<String> texts);
+
     CommentDto update(long id, String text);
 
     void deleteById(long id);
@@ -9,6 +9,7 @@ import ru.otus.hw.exceptions.EntityNotFoundException;
 import ru.otus.hw.models.Book;
 import ru.otus.hw.models.Comment;
 import ru.otus.hw.repositories.BookRepository;
+import ru.otus.hw.repositories.CommentDtoRepository;
 import ru.otus.hw.repositories.CommentRepository;
 
 import java.util.List;
@@ -20,6 +21,8 @@ public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
 
+    private final CommentDtoRepository commentDtoRepository;
+
     private final CommentConverter commentConverter;
 
     private final BookRepository bookRepository;
@@ -27,16 +30,13 @@ public class CommentServiceImpl implements CommentService {
     @Transactional(readOnly = true)
     @Override
     public Optional<CommentDto> findById(long id) {
-        return commentRepository.findById(id).map(commentConverter::commentToDto);
+        return commentDtoRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<CommentDto> findByBookId(long bookId) {
-        return commentRepository.findByBookId(bookId)
-                .stream()
-                .map(commentConverter::commentToDto)
-                .toList();
+        return commentDtoRepository.findByBookId(bookId);
     }
 
     @Transactional
@@ -47,6 +47,18 @@ public class CommentServiceImpl implements CommentService {
         return commentConverter.commentToDto(commentRepository.save(comment));
     }
 
+    @Transactional
+    @Override
+    public List<CommentDto> insertAll(long bookId, List<String> texts) {
+        var book = findBook(bookId);
+        var comments = texts.stream()
+                .map(text -> new Comment(0, text, book))
+                .toList();
+        return commentRepository.saveAll(comments).stream()
+                .map(commentConverter::commentToDto)
+                .toList();
+    }
+
     @Transactional
     @Override
     public CommentDto update(long id, String text) {
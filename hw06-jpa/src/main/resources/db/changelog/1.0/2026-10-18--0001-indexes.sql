@@ -0,0 +1,5 @@
+create index idx_books_author_id on books (author_id);
+
+create index idx_books_genres_genre_id on books_genres (genre_id);
+
+create index idx_comments_book_id on comments (book_id);
@@ -0,0 +1,35 @@
+-- Hibernate takes ids from these sequences in blocks of 50 with the pooled optimizer, which reads a sequence
+-- value as the last id of its block: restarting at max(id) + 50 makes the first block continue right after
+-- the existing rows. Plain inserts take the sequence values themselves, which never fall into the blocks
+
+create sequence authors_seq start with 50 increment by 50;
+
+alter sequence authors_seq restart with (select coalesce(max(id), 0) + 50 from authors);
+
+alter table authors alter column id drop identity;
+
+alter table authors alter column id set default next value for authors_seq;
+
+create sequence genres_seq start with 50 increment by 50;
+
+alter sequence genres_seq restart with (select coalesce(max(id), 0) + 50 from genres);
+
+alter table genres alter column id drop identity;
+
+alter table genres alter column id set default next value for genres_seq;
+
+create sequence books_seq start with 50 increment by 50;
+
+alter sequence books_seq restart with (select coalesce(max(id), 0) + 50 from books);
+
+alter table books alter column id drop identity;
+
+alter table books alter column id set default next value for books_seq;
+
+create sequence comments_seq start with 50 increment by 50;
+
+alter sequence comments_seq restart with (select coalesce(max(id), 0) + 50 from comments);
+
+alter table comments alter column id drop identity;
+
+alter table comments alter column id set default next value for comments_seq;
@@ -0,0 +1,94 @@
+package ru.otus.hw.repositories;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Comment;
+import ru.otus.hw.models.Genre;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры производительности пакетной вставки сущностей (-Dbenchmark=true)")
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class JpaBatchInsertBenchmarkTest {
+
+    private static final int ENTITIES_COUNT = 10_000;
+
+    private static final int ITERATIONS = 5;
+
+    private static final int FLUSH_EVERY = 50;
+
+    @Autowired
+    private EntityManager em;
+
+    @DisplayName("вставка книг и комментариев пакетами JDBC против вставки по одной")
+    @Test
+    void compareBatchedWithSingleInserts() {
+        var author = em.find(Author.class, 1L);
+        var genres = List.of(em.find(Genre.class, 1L), em.find(Genre.class, 2L));
+        var book = em.find(Book.class, 1L);
+        IntFunction<Book> newBook = i -> new Book(0, "Bench_" + i, author, genres);
+        IntFunction<Comment> newComment = i -> new Comment(0, "Bench comment " + i, book);
+
+        System.out.printf("%d books with 2 genres: single %s; batched %s%n", ENTITIES_COUNT,
+                measure(1, newBook), measure(FLUSH_EVERY, newBook));
+        System.out.printf("%d comments: single %s; batched %s%n", ENTITIES_COUNT,
+                measure(1, newComment), measure(FLUSH_EVERY, newComment));
+    }
+
+    // The same persist loop, flushing and clearing every FLUSH_EVERY entities like saveAll of the repositories,
+    // is run with the session JDBC batch size set to 1, which sends every insert on its own, and to FLUSH_EVERY
+    private Measurement measure(int jdbcBatchSize, IntFunction<?> entityFactory) {
+        var session = em.unwrap(Session.class);
+        var statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        session.setJdbcBatchSize(jdbcBatchSize);
+        try {
+            persistAll(entityFactory);
+            statistics.clear();
+            var startedAt = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                persistAll(entityFactory);
+            }
+            var elapsedNanos = System.nanoTime() - startedAt;
+            var insertedCount = statistics.getEntityInsertCount();
+
+            assertThat(insertedCount).isEqualTo((long) ENTITIES_COUNT * ITERATIONS);
+            return new Measurement(elapsedNanos / ITERATIONS / 1_000_000,
+                    statistics.getPrepareStatementCount() / ITERATIONS);
+        } finally {
+            session.setJdbcBatchSize(null);
+        }
+    }
+
+    private void persistAll(IntFunction<?> entityFactory) {
+        IntStream.range(0, ENTITIES_COUNT).forEach(i -> {
+            em.persist(entityFactory.apply(i));
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                em.flush();
+                em.clear();
+            }
+        });
+        em.flush();
+        em.clear();
+    }
+
+    private record Measurement(long millisPerCall, long statementsPerCall) {
+
+        @Override
+        public String toString() {
+            return "%d ms, %d statements prepared per call".formatted(millisPerCall, statementsPerCall);
+        }
+    }
+}
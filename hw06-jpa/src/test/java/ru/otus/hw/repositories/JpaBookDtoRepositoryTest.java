@@ -0,0 +1,81 @@
+package ru.otus.hw.repositories;
+
+import lombok.val;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.otus.hw.dto.AuthorDto;
+import ru.otus.hw.dto.BookCommentsCountDto;
+import ru.otus.hw.dto.BookDto;
+import ru.otus.hw.dto.GenreDto;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Репозиторий на основе JPA для чтения книг в виде DTO")
+@DataJpaTest
+@Import(JpaBookDtoRepository.class)
+public class JpaBookDtoRepositoryTest {
+
+    private static final long FIRST_BOOK_ID = 1L;
+
+    private static final long MISSING_BOOK_ID = 100L;
+
+    @Autowired
+    private JpaBookDtoRepository bookDtoRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @DisplayName("должен возвращать книгу по id вместе с автором и жанрами")
+    @Test
+    void shouldFindBookById() {
+        assertThat(bookDtoRepository.findById(FIRST_BOOK_ID)).contains(getDbBooks().get(0));
+        assertThat(bookDtoRepository.findById(MISSING_BOOK_ID)).isEmpty();
+    }
+
+    @DisplayName("должен возвращать все книги, не загружая сущности в контекст персистентности")
+    @Test
+    void shouldFindAllBooksWithoutManagedEntities() {
+        em.clear();
+        val actualBooks = bookDtoRepository.findAll();
+
+        assertThat(actualBooks).containsExactlyElementsOf(getDbBooks());
+        assertThat(em.getEntityManager().unwrap(SessionImplementor.class)
+                .getPersistenceContext().getNumberOfManagedEntities()).isZero();
+    }
+
+    @DisplayName("должен возвращать страницу книг с количеством комментариев, не загружая комментарии")
+    @Test
+    void shouldFindCommentsCountsPageWithoutLoadingComments() {
+        val statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        assertThat(bookDtoRepository.findCommentsCountsPage(0, 2)).containsExactly(
+                new BookCommentsCountDto(1L, "BookTitle_1", 3),
+                new BookCommentsCountDto(2L, "BookTitle_2", 0));
+        assertThat(bookDtoRepository.findCommentsCountsPage(2L, 2)).containsExactly(
+                new BookCommentsCountDto(3L, "BookTitle_3", 0));
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private static List<BookDto> getDbBooks() {
+        return IntStream.range(1, 4).boxed()
+                .map(id -> new BookDto(id,
+                        "BookTitle_" + id,
+                        new AuthorDto(id, "Author_" + id),
+                        List.of(new GenreDto(id * 2 - 1, "Genre_" + (id * 2 - 1)),
+                                new GenreDto(id * 2, "Genre_" + id * 2))
+                ))
+                .toList();
+    }
+}
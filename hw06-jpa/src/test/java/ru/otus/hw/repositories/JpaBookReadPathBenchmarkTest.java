@@ -0,0 +1,119 @@
+package ru.otus.hw.repositories;
+
+import com.sun.management.ThreadMXBean;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.otus.hw.converters.AuthorConverter;
+import ru.otus.hw.converters.BookConverter;
+import ru.otus.hw.converters.GenreConverter;
+import ru.otus.hw.dto.BookDto;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Замеры производительности чтения книг через сущности и через проекции (-Dbenchmark=true)")
+@DataJpaTest(showSql = false)
+@Import({JpaBookRepository.class, JpaBookDtoRepository.class, BookConverter.class, AuthorConverter.class,
+        GenreConverter.class})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class JpaBookReadPathBenchmarkTest {
+
+    private static final int BOOKS_COUNT = 100_000;
+
+    private static final int ITERATIONS = 3;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JpaBookRepository bookRepository;
+
+    @Autowired
+    private JpaBookDtoRepository bookDtoRepository;
+
+    @Autowired
+    private BookConverter bookConverter;
+
+    @BeforeEach
+    void setUp() {
+        em.createNativeQuery("""
+                insert into books (title, author_id)
+                select 'Bench_' || x, 1 + mod(x, 3) from system_range(1, %d)
+                """.formatted(BOOKS_COUNT)).executeUpdate();
+        em.createNativeQuery("""
+                insert into books_genres (book_id, genre_id)
+                select id, 1 + mod(id, 6) from books where title like 'Bench\\_%'
+                union all
+                select id, 1 + mod(id + 1, 6) from books where title like 'Bench\\_%'
+                """).executeUpdate();
+    }
+
+    @DisplayName("чтение всех книг через управляемые сущности против чтения DTO из кортежей")
+    @Test
+    void compareManagedWithProjectionReads() {
+        var session = em.unwrap(Session.class);
+        Supplier<List<BookDto>> managed = () -> bookRepository.findAll().stream()
+                .map(bookConverter::bookToDto)
+                .toList();
+
+        System.out.printf("%d books: managed %s%n", BOOKS_COUNT, measure(managed));
+        session.setDefaultReadOnly(true);
+        try {
+            System.out.printf("%d books: managed read-only %s%n", BOOKS_COUNT, measure(managed));
+        } finally {
+            session.setDefaultReadOnly(false);
+        }
+        System.out.printf("%d books: projection %s%n", BOOKS_COUNT, measure(bookDtoRepository::findAll));
+    }
+
+    // Retained heap is taken while the books are still referenced and before the persistence context is cleared,
+    // so it includes the managed entities and their snapshots along with the DTOs
+    private Measurement measure(Supplier<List<BookDto>> reader) {
+        var threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().getId();
+        assertThat(reader.get()).hasSizeGreaterThan(BOOKS_COUNT);
+        em.clear();
+
+        long elapsedNanos = 0;
+        long allocatedBytes = 0;
+        long retainedBytes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            var usedBefore = usedHeap();
+            var allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            var startedAt = System.nanoTime();
+            var books = reader.get();
+            elapsedNanos += System.nanoTime() - startedAt;
+            allocatedBytes += threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            retainedBytes += usedHeap() - usedBefore;
+            assertThat(books).hasSizeGreaterThan(BOOKS_COUNT);
+            em.clear();
+        }
+        return new Measurement(elapsedNanos / ITERATIONS / 1_000_000, allocatedBytes / ITERATIONS >> 20,
+                retainedBytes / ITERATIONS >> 20);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private record Measurement(long millisPerCall, long allocatedMegabytes, long retainedMegabytes) {
+
+        @Override
+        public String toString() {
+            return "%d ms, %d MB allocated, %d MB retained per call"
+                    .formatted(millisPerCall, allocatedMegabytes, retainedMegabytes);
+        }
+    }
+}
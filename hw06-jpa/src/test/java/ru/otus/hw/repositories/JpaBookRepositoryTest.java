@@ -1,6 +1,7 @@
 package ru.otus.hw.repositories;
 
 import lombok.val;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -74,6 +75,25 @@ public class JpaBookRepositoryTest {
                 .containsExactlyInAnyOrderElementsOf(expectedBooks);
     }
 
+    @DisplayName("должен возвращать страницу книг после заданного id вместе с авторами и жанрами")
+    @Test
+    void shouldFindPageOfBooksWithAuthorsAndGenres() {
+        em.clear();
+        val actualBooks = bookRepository.findPage(FIRST_BOOK_ID, 2);
+
+        assertThat(actualBooks)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(dbBooks.subList(1, 3));
+        assertThat(actualBooks).allMatch(book -> Hibernate.isInitialized(book.getAuthor())
+                && Hibernate.isInitialized(book.getGenres()));
+    }
+
+    @DisplayName("должен возвращать пустую страницу после последней книги")
+    @Test
+    void shouldReturnEmptyPageAfterLastBook() {
+        assertThat(bookRepository.findPage(dbBooks.size(), 2)).isEmpty();
+    }
+
     @DisplayName("должен сохранять новую книгу")
     @Test
     void shouldSaveNewBook() {
@@ -104,6 +124,24 @@ public class JpaBookRepositoryTest {
                 .isEqualTo(expectedBook);
     }
 
+    @DisplayName("должен сохранять список новых книг, сбрасывая изменения пакетами")
+    @Test
+    void shouldSaveAllNewBooks() {
+        val newBooks = IntStream.range(0, 120)
+                .mapToObj(i -> new Book(TRANSIENT_BOOK_ID, "Bulk_" + i, dbAuthors.get(i % 3),
+                        List.of(dbGenres.get(i % 6))))
+                .toList();
+
+        val savedBooks = bookRepository.saveAll(newBooks);
+        em.clear();
+
+        assertThat(savedBooks).hasSize(newBooks.size()).allMatch(book -> book.getId() > 0);
+        assertThat(em.find(Book.class, savedBooks.get(119).getId()))
+                .usingRecursiveComparison()
+                .ignoringExpectedNullFields()
+                .isEqualTo(newBooks.get(119));
+    }
+
     @DisplayName("должен удалять книгу по id")
     @Test
     void shouldDeleteBookById() {
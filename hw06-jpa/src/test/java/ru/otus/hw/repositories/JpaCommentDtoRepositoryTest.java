@@ -0,0 +1,39 @@
+package ru.otus.hw.repositories;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.otus.hw.dto.CommentDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Репозиторий на основе JPA для чтения комментариев в виде DTO")
+@DataJpaTest
+@Import(JpaCommentDtoRepository.class)
+public class JpaCommentDtoRepositoryTest {
+
+    private static final long FIRST_COMMENT_ID = 1L;
+
+    private static final long FIRST_BOOK_ID = 1L;
+
+    @Autowired
+    private JpaCommentDtoRepository commentDtoRepository;
+
+    @DisplayName("должен возвращать комментарий по id")
+    @Test
+    void shouldFindCommentById() {
+        assertThat(commentDtoRepository.findById(FIRST_COMMENT_ID))
+                .contains(new CommentDto(FIRST_COMMENT_ID, FIRST_BOOK_ID, "Comment 1"));
+    }
+
+    @DisplayName("должен возвращать комментарии книги по возрастанию id")
+    @Test
+    void shouldFindCommentsByBookId() {
+        assertThat(commentDtoRepository.findByBookId(FIRST_BOOK_ID)).containsExactly(
+                new CommentDto(1L, FIRST_BOOK_ID, "Comment 1"),
+                new CommentDto(2L, FIRST_BOOK_ID, "Comment 2"),
+                new CommentDto(3L, FIRST_BOOK_ID, "Comment 3"));
+    }
+}
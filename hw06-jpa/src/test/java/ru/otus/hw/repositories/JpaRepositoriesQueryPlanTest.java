@@ -0,0 +1,142 @@
+package ru.otus.hw.repositories;
+
+import lombok.val;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcOperations;
+import ru.otus.hw.models.Author;
+import ru.otus.hw.models.Book;
+import ru.otus.hw.models.Comment;
+import ru.otus.hw.models.Genre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Планы запросов репозиториев на основе JPA")
+@DataJpaTest
+@Import({JpaAuthorRepository.class, JpaBookRepository.class, JpaBookDtoRepository.class, JpaCommentsRepository.class,
+        JpaGenreRepository.class})
+public class JpaRepositoriesQueryPlanTest {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+
+    private static final Pattern EXPLAINABLE_STATEMENT = Pattern.compile("^(select|insert|update|delete)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private JpaAuthorRepository authorRepository;
+
+    @Autowired
+    private JpaBookRepository bookRepository;
+
+    @Autowired
+    private JpaBookDtoRepository bookDtoRepository;
+
+    @Autowired
+    private JpaCommentsRepository commentsRepository;
+
+    @Autowired
+    private JpaGenreRepository genreRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcOperations jdbc;
+
+    @DisplayName("должен загружать авторов и жанры по индексу, кроме полных списков")
+    @Test
+    void shouldUseIndexesForAuthorsAndGenresQueries() {
+        assertNoTableScans(() -> authorRepository.findById(1L));
+        assertNoTableScans(() -> authorRepository.findAll(), "AUTHORS");
+        assertNoTableScans(() -> genreRepository.findAllByIds(Set.of(1L, 2L)));
+        assertNoTableScans(() -> genreRepository.findAll(), "GENRES");
+    }
+
+    @DisplayName("должен загружать книги по индексу, кроме полного списка")
+    @Test
+    void shouldUseIndexesForBooksQueries() {
+        assertNoTableScans(() -> bookRepository.findById(1L));
+        assertNoTableScans(() -> bookRepository.findAll()
+                .forEach(book -> book.getGenres().size()), "BOOKS");
+        assertNoTableScans(() -> bookRepository.findPage(1L, 2));
+        assertNoTableScans(() -> bookDtoRepository.findCommentsCountsPage(1L, 2));
+    }
+
+    @DisplayName("должен сохранять и удалять книги по индексу")
+    @Test
+    void shouldUseIndexesForBooksUpdates() {
+        val author = em.find(Author.class, 1L);
+        val genres = List.of(em.find(Genre.class, 1L), em.find(Genre.class, 3L));
+
+        assertNoTableScans(() -> bookRepository.save(
+                new Book(0, "BookTitle_10500", author, new ArrayList<>(genres))));
+        assertNoTableScans(() -> bookRepository.save(
+                new Book(1L, "BookTitle_10501", author, new ArrayList<>(genres))));
+        assertNoTableScans(() -> bookRepository.deleteById(2L));
+    }
+
+    @DisplayName("должен загружать, сохранять и удалять комментарии по индексу")
+    @Test
+    void shouldUseIndexesForCommentsQueries() {
+        val book = em.find(Book.class, 1L);
+
+        assertNoTableScans(() -> commentsRepository.findById(1L));
+        assertNoTableScans(() -> commentsRepository.findByBookId(1L));
+        assertNoTableScans(() -> commentsRepository.save(new Comment(0, "Comment 4", book)));
+        assertNoTableScans(() -> commentsRepository.deleteById(1L));
+    }
+
+    @DisplayName("должен находить по индексу строки, удаляемые каскадно")
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "select id from books where author_id = 1",
+            "select book_id from books_genres where genre_id = 1",
+            "select book_id from books_genres where book_id = 1",
+            "select id from comments where book_id = 1"})
+    void shouldUseIndexesForCascadeDeletes(String referencingRowsSql) {
+        assertThat(scannedTablesOf(referencingRowsSql)).isEmpty();
+    }
+
+    private void assertNoTableScans(Runnable repositoryCall, String... allowedScannedTables) {
+        em.flush();
+        em.clear();
+        // the second-level and query caches would answer without any statement to explain
+        em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+        jdbc.execute("set query_statistics true");
+        try {
+            repositoryCall.run();
+            em.flush();
+            val statements = jdbc.queryForList("select sql_statement from information_schema.query_statistics",
+                            String.class).stream()
+                    .filter(sql -> EXPLAINABLE_STATEMENT.matcher(sql.strip()).find())
+                    .filter(sql -> !sql.contains("information_schema"))
+                    .toList();
+
+            assertThat(statements).isNotEmpty()
+                    .allSatisfy(sql -> assertThat(scannedTablesOf(sql)).as(sql)
+                            .isSubsetOf(allowedScannedTables));
+        } finally {
+            jdbc.execute("set query_statistics false");
+        }
+    }
+
+    private Set<String> scannedTablesOf(String sql) {
+        val plan = String.join("\n", jdbc.queryForList("explain " + sql, String.class));
+        return TABLE_SCAN.matcher(plan).results()
+                .map(match -> match.group(1))
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,106 @@
+package ru.otus.hw.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.otus.hw.models.Genre;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Кэш второго уровня и кэш запросов для авторов и жанров ")
+@DataJpaTest
+@Import({JpaAuthorRepository.class, JpaGenreRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class JpaSecondLevelCacheTest {
+
+    private static final Set<Long> GENRES_IDS = Set.of(1L, 3L, 6L);
+
+    @Autowired
+    private JpaAuthorRepository authorRepository;
+
+    @Autowired
+    private JpaGenreRepository genreRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Every check runs in its own transaction, so nothing is served by the persistence context
+    @DisplayName("должен повторно проверять автора и жанры книги без SQL-запросов")
+    @Test
+    void shouldValidateAuthorAndGenresWithoutSqlRepeatedly() {
+        transactionTemplate.executeWithoutResult(status -> validateAuthorAndGenres());
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            transactionTemplate.executeWithoutResult(status -> validateAuthorAndGenres());
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(3 * (1 + GENRES_IDS.size()));
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+    }
+
+    @DisplayName("должен повторно выгружать списки авторов и жанров из кэша запросов")
+    @Test
+    void shouldReturnCachedAuthorsAndGenresLists() {
+        transactionTemplate.executeWithoutResult(status -> {
+            authorRepository.findAll();
+            genreRepository.findAll();
+        });
+        statistics.clear();
+
+        var genres = transactionTemplate.execute(status -> {
+            assertThat(authorRepository.findAll()).hasSize(3);
+            return genreRepository.findAll();
+        });
+
+        assertThat(genres).hasSize(6);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+    }
+
+    @DisplayName("должен заново выполнять запрос списка жанров после добавления жанра")
+    @Test
+    void shouldInvalidateCachedGenresListOnInsert() {
+        transactionTemplate.executeWithoutResult(status -> genreRepository.findAll());
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.persist(new Genre(0, "Genre_7")));
+
+        var genres = transactionTemplate.execute(status -> genreRepository.findAll());
+
+        assertThat(genres).hasSize(7).extracting(Genre::getName).contains("Genre_7");
+    }
+
+    private void validateAuthorAndGenres() {
+        assertThat(authorRepository.findById(1)).isPresent();
+        assertThat(genreRepository.findAllByIds(GENRES_IDS)).extracting(Genre::getId)
+                .containsExactly(1L, 3L, 6L);
+    }
+}
@@ -12,14 +12,19 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.otus.hw.dto.AuthorDto;
+import ru.otus.hw.dto.BookCommentsCountDto;
 import ru.otus.hw.dto.BookDto;
 import ru.otus.hw.dto.GenreDto;
+import ru.otus.hw.dto.NewBookDto;
+import ru.otus.hw.exceptions.EntityNotFoundException;
 
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("Сервис для работы с книгами")
 @SpringBootTest
@@ -33,6 +38,7 @@ public class BookServiceImplTest {
     private static final int FIRST_GENRE = 0;
     private static final int THIRD_GENRE = 2;
     private static final int SIXTH_GENRE = 5;
+    private static final int INSERTED_BOOKS_COUNT = 120;
 
     @Autowired
     private BookService bookService;
@@ -82,6 +88,40 @@ public class BookServiceImplTest {
                 .containsExactlyInAnyOrderElementsOf(expectedBooks);
     }
 
+    @DisplayName("должен возвращать книги постранично по возрастанию id")
+    @Test
+    void shouldFindBooksPageByPage() {
+        val firstPage = bookService.findPage(0, 2);
+        val secondPage = bookService.findPage(firstPage.get(firstPage.size() - 1).id(), 2);
+
+        assertThat(firstPage)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(dbBooks.subList(0, 2));
+        assertThat(secondPage)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(dbBooks.subList(2, 3));
+    }
+
+    @DisplayName("должен отклонять непозитивный или слишком большой размер страницы")
+    @Test
+    void shouldRejectPageLimitOutOfRange() {
+        assertThatThrownBy(() -> bookService.findPage(0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookService.findPage(0, 1001))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(bookService.findPage(0, 1000)).hasSize(dbBooks.size());
+    }
+
+    @DisplayName("должен возвращать книги с количеством комментариев постранично")
+    @Test
+    void shouldFindCommentsCountsPage() {
+        assertThat(bookService.findCommentsCountsPage(0, 3))
+                .extracting(BookCommentsCountDto::commentsCount)
+                .containsExactly(3L, 0L, 0L);
+        assertThatThrownBy(() -> bookService.findCommentsCountsPage(0, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @DisplayName("должен сохранять новую книгу")
     @Test
     @DirtiesContext
@@ -144,6 +184,62 @@ public class BookServiceImplTest {
                 .isEqualTo(actualBook);
     }
 
+    @DisplayName("должен сохранять пачку новых книг с id, продолжающими существующие")
+    @Test
+    @DirtiesContext
+    void shouldInsertAllNewBooks() {
+        val newBooks = IntStream.range(0, INSERTED_BOOKS_COUNT)
+                .mapToObj(i -> new NewBookDto("Bulk_" + i, i % 3 + 1, Set.of((long) i % 6 + 1)))
+                .toList();
+
+        val actualBooks = bookService.insertAll(newBooks);
+
+        assertThat(actualBooks).extracting(BookDto::id)
+                .containsExactlyElementsOf(LongStream.range(FOURTH_BOOK_ID, FOURTH_BOOK_ID + INSERTED_BOOKS_COUNT)
+                        .boxed().toList());
+        assertThat(bookService.findAll()).hasSize(dbBooks.size() + INSERTED_BOOKS_COUNT);
+        assertThat(bookService.findById(actualBooks.get(INSERTED_BOOKS_COUNT - 1).id()))
+                .contains(new BookDto(FOURTH_BOOK_ID + INSERTED_BOOKS_COUNT - 1, "Bulk_119",
+                        dbAuthors.get(119 % 3), List.of(dbGenres.get(119 % 6))));
+    }
+
+    @DisplayName("не должен сохранять ни одной книги из пачки, если автор одной из них не найден")
+    @Test
+    void shouldNotInsertBooksWithMissingAuthor() {
+        val newBooks = List.of(new NewBookDto("Bulk_1", 1, Set.of(1L)), new NewBookDto("Bulk_2", 777, Set.of(2L)));
+
+        assertThatThrownBy(() -> bookService.insertAll(newBooks))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(bookService.findAll()).hasSize(dbBooks.size());
+    }
+
+    @DisplayName("не должен сохранять книги из пачки, если жанр одной из них не найден, и называть только его")
+    @Test
+    void shouldNotInsertBooksWithMissingGenre() {
+        val newBooks = List.of(new NewBookDto("Bulk_1", 1, Set.of(1L)), new NewBookDto("Bulk_2", 2, Set.of(2L, 777L)));
+
+        assertThatThrownBy(() -> bookService.insertAll(newBooks))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("Genres with ids [777] not found");
+        assertThat(bookService.findAll()).hasSize(dbBooks.size());
+    }
+
+    @DisplayName("должен возвращать книги пачки с авторами и жанрами, даже если контекст очищался между пакетами JDBC")
+    @Test
+    @DirtiesContext
+    void shouldReturnInsertedBooksWithAuthorsAndGenresAcrossBatches() {
+        val newBooks = IntStream.range(0, INSERTED_BOOKS_COUNT)
+                .mapToObj(i -> new NewBookDto("Bulk_" + i, i % 3 + 1, Set.of((long) i % 6 + 1)))
+                .toList();
+
+        val actualBooks = bookService.insertAll(newBooks);
+
+        assertThat(actualBooks).hasSize(INSERTED_BOOKS_COUNT);
+        IntStream.range(0, INSERTED_BOOKS_COUNT).forEach(i -> assertThat(actualBooks.get(i))
+                .isEqualTo(new BookDto(FOURTH_BOOK_ID + i, "Bulk_" + i, dbAuthors.get(i % 3),
+                        List.of(dbGenres.get(i % 6)))));
+    }
+
     @DisplayName("должен удалять книгу по id")
     @Test
     @DirtiesContext
@@ -10,6 +10,8 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.otus.hw.dto.CommentDto;
 
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -27,6 +29,7 @@ public class CommentsServiceTest {
     private static final String FIRST_COMMENT_TEXT = "Comment 1";
     private static final String SECOND_COMMENT_TEXT = "Comment 2";
     private static final String THIRD_COMMENT_TEXT = "Comment 3";
+    private static final int INSERTED_COMMENTS_COUNT = 120;
 
     @Autowired
     private CommentService commentService;
@@ -66,6 +69,23 @@ public class CommentsServiceTest {
         assertThat(actualComment).isEqualTo(expectedComment);
     }
 
+    @DisplayName("должен сохранять пачку новых комментариев к книге")
+    @DirtiesContext
+    @Test
+    void shouldSaveAllNewComments() {
+        var texts = IntStream.range(0, INSERTED_COMMENTS_COUNT).mapToObj(i -> "Bulk comment " + i).toList();
+        var expectedComments = LongStream.range(0, INSERTED_COMMENTS_COUNT)
+                .mapToObj(i -> new CommentDto(FOURTH_COMMENT_ID + i, FIRST_BOOK_ID, texts.get((int) i)))
+                .toList();
+
+        var actualComments = commentService.insertAll(FIRST_BOOK_ID, texts);
+
+        assertThat(actualComments).containsExactlyElementsOf(expectedComments);
+        assertThat(commentService.findByBookId(FIRST_BOOK_ID))
+                .hasSize(3 + INSERTED_COMMENTS_COUNT)
+                .containsAll(expectedComments);
+    }
+
     @DisplayName("должен обновлять текст комментария")
     @DirtiesContext
     @Test